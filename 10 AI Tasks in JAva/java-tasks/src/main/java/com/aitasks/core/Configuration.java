@@ -15,11 +15,15 @@ public class Configuration {
         }
     }
     
+    /**
+     * Returns the value of {@code key}; a JVM system property of the same name
+     * (e.g. {@code -Dmodel.spam.snapshot=...}) overrides application.properties.
+     */
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
     }
     
     public static String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
     }
 } 
\ No newline at end of file
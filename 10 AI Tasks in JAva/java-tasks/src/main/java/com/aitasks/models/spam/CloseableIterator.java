@@ -0,0 +1,14 @@
+package com.aitasks.models.spam;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterator over a file-backed source. Closing it releases the underlying file
+ * or directory handle right away, e.g. when an iteration is abandoned early;
+ * one that runs to the end releases it on its own.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+    @Override
+    void close();
+}
@@ -0,0 +1,84 @@
+package com.aitasks.models.spam;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cascade stage backed by a Bloom filter of known-spam fingerprints. The
+ * fingerprint is a 64-bit hash of the message with case and whitespace runs
+ * normalised, so resent copies of a reported message are caught without storing
+ * the messages themselves. False positives occur at roughly the configured rate.
+ */
+public class FingerprintStage implements SpamCascade.Stage {
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    public FingerprintStage(int expectedEntries, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        long size = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.numBits = Math.max(64, (size + 63) / 64 * 64);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedEntries * ln2));
+        this.bits = new AtomicLongArray((int) (numBits / 64));
+    }
+
+    @Override
+    public String getName() {
+        return "fingerprint";
+    }
+
+    public void addKnownSpam(String content) {
+        long fingerprint = fingerprint(content);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = bitIndex(fingerprint, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    @Override
+    public double evaluate(String content) {
+        long fingerprint = fingerprint(content);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = bitIndex(fingerprint, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return Double.NaN;
+            }
+        }
+        return 1.0;
+    }
+
+    private long bitIndex(long fingerprint, int i) {
+        // Kirsch-Mitzenmacher double hashing from the two halves of the fingerprint
+        long h1 = fingerprint & 0xFFFFFFFFL;
+        long h2 = fingerprint >>> 32;
+        return Math.floorMod(h1 + i * h2, numBits);
+    }
+
+    static long fingerprint(String content) {
+        long hash = 0xcbf29ce484222325L;
+        boolean started = false;
+        boolean pendingSpace = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                hash = (hash ^ ' ') * 0x100000001b3L;
+                pendingSpace = false;
+            }
+            hash = (hash ^ Character.toLowerCase(c)) * 0x100000001b3L;
+            started = true;
+        }
+        // FNV-1a has weak low bits; finish with a 64-bit mix
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,140 @@
+package com.aitasks.models.spam;
+
+import java.util.Arrays;
+
+/**
+ * Tokenizes messages the same way as Weka's default {@code WordTokenizer} with
+ * lower-casing, and maps each distinct known token to its feature id.
+ * All scratch space lives in a per-thread {@link FeatureBuffer} that is reused
+ * across calls, so vectorizing a message does not allocate.
+ */
+final class HashedFeatureVectorizer {
+    // Same delimiters as weka.core.tokenizers.WordTokenizer
+    private static final String DELIMITERS = " \r\n\t.,;:'\"()?!";
+    private static final boolean[] IS_DELIMITER = new boolean[128];
+
+    static {
+        for (char c : DELIMITERS.toCharArray()) {
+            IS_DELIMITER[c] = true;
+        }
+    }
+
+    private final TokenDictionary dictionary;
+    private final ThreadLocal<FeatureBuffer> buffers = ThreadLocal.withInitial(FeatureBuffer::new);
+
+    HashedFeatureVectorizer(TokenDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    TokenDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Vectorizes the text into the calling thread's buffer. The returned buffer is
+     * only valid until the next call on the same thread.
+     */
+    FeatureBuffer vectorize(String text) {
+        return vectorize(text, false);
+    }
+
+    /**
+     * Vectorizes the text, adding tokens the dictionary has not seen yet so the
+     * vocabulary grows with the training data.
+     */
+    FeatureBuffer vectorizeAndGrow(String text) {
+        return vectorize(text, true);
+    }
+
+    private FeatureBuffer vectorize(String text, boolean grow) {
+        FeatureBuffer buffer = buffers.get();
+        buffer.reset(dictionary.size());
+        int length = text.length();
+        int tokenLength = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (c < 128 && IS_DELIMITER[c]) {
+                if (tokenLength > 0) {
+                    buffer.addFeature(grow
+                        ? dictionary.add(buffer.token, tokenLength)
+                        : dictionary.get(buffer.token, tokenLength));
+                    tokenLength = 0;
+                }
+            } else {
+                buffer.appendChar(tokenLength++, Character.toLowerCase(c));
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Reusable per-thread scratch space: the current token's characters and the
+     * distinct feature ids of the last vectorized message with their occurrence counts.
+     */
+    static final class FeatureBuffer {
+        private char[] token = new char[64];
+        private int[] features = new int[64];
+        private int[] occurrences = new int[64];
+        private int[] seen = new int[0]; // last stamp at which each feature id was added
+        private int[] positions = new int[0]; // index into features for ids seen at the current stamp
+        private int stamp;
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int feature(int i) {
+            return features[i];
+        }
+
+        /**
+         * Returns how many times the i-th distinct feature occurred in the message.
+         */
+        int occurrences(int i) {
+            return occurrences[i];
+        }
+
+        private void reset(int vocabularySize) {
+            if (seen.length < vocabularySize) {
+                seen = new int[Math.max(vocabularySize, seen.length << 1)];
+                positions = new int[seen.length];
+                stamp = 0;
+            }
+            if (++stamp == 0) {
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+            size = 0;
+        }
+
+        private void appendChar(int index, char c) {
+            if (index == token.length) {
+                token = Arrays.copyOf(token, index << 1);
+            }
+            token[index] = c;
+        }
+
+        private void addFeature(int id) {
+            if (id < 0) {
+                return;
+            }
+            if (id >= seen.length) {
+                seen = Arrays.copyOf(seen, Math.max(id + 1, seen.length << 1));
+                positions = Arrays.copyOf(positions, seen.length);
+            }
+            if (seen[id] == stamp) {
+                occurrences[positions[id]]++;
+                return;
+            }
+            seen[id] = stamp;
+            if (size == features.length) {
+                features = Arrays.copyOf(features, size << 1);
+                occurrences = Arrays.copyOf(occurrences, size << 1);
+            }
+            positions[id] = size;
+            occurrences[size] = 1;
+            features[size++] = id;
+        }
+    }
+}
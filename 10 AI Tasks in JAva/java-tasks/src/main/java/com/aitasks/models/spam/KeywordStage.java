@@ -0,0 +1,106 @@
+package com.aitasks.models.spam;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cascade stage that flags messages containing any blocklisted keyword or URL
+ * fragment. The patterns are compiled into an Aho-Corasick automaton with full
+ * transition tables, so a message is scanned once in linear time regardless of
+ * how many patterns there are. Matching is case-insensitive over ASCII; any
+ * non-ASCII character resets the automaton.
+ */
+public class KeywordStage implements SpamCascade.Stage {
+    private static final int ALPHABET = 128;
+
+    private final int[][] transitions;
+    private final boolean[] accepting;
+
+    public KeywordStage(Collection<String> patterns) {
+        List<int[]> next = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        next.add(newState());
+        terminal.add(false);
+
+        // Build the trie
+        for (String pattern : patterns) {
+            String normalized = pattern.trim().toLowerCase(Locale.ROOT);
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < normalized.length(); i++) {
+                char c = normalized.charAt(i);
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException("Only ASCII keywords are supported: " + pattern);
+                }
+                if (next.get(state)[c] < 0) {
+                    next.get(state)[c] = next.size();
+                    next.add(newState());
+                    terminal.add(false);
+                }
+                state = next.get(state)[c];
+            }
+            terminal.set(state, true);
+        }
+
+        // Breadth-first pass turns the trie into a DFA using failure links
+        int[] failure = new int[next.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] root = next.get(0);
+        for (int c = 0; c < ALPHABET; c++) {
+            if (root[c] < 0) {
+                root[c] = 0;
+            } else {
+                queue.add(root[c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            terminal.set(state, terminal.get(state) || terminal.get(failure[state]));
+            int[] row = next.get(state);
+            for (int c = 0; c < ALPHABET; c++) {
+                if (row[c] < 0) {
+                    row[c] = next.get(failure[state])[c];
+                } else {
+                    failure[row[c]] = next.get(failure[state])[c];
+                    queue.add(row[c]);
+                }
+            }
+        }
+
+        this.transitions = next.toArray(new int[0][]);
+        this.accepting = new boolean[terminal.size()];
+        for (int i = 0; i < accepting.length; i++) {
+            accepting[i] = terminal.get(i);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "keywords";
+    }
+
+    @Override
+    public double evaluate(String content) {
+        int state = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = Character.toLowerCase(content.charAt(i));
+            state = c < ALPHABET ? transitions[state][c] : 0;
+            if (accepting[state]) {
+                return 1.0;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static int[] newState() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+}
@@ -0,0 +1,107 @@
+package com.aitasks.models.spam;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns the raw bytes of one RFC 822 message into classifier content: the
+ * Subject header followed by the body. Other headers are dropped, and mboxrd
+ * {@code >From } escapes are undone. MIME parts are passed through undecoded.
+ */
+final class MailMessageDecoder {
+    private static final byte[] SUBJECT = "subject:".getBytes(StandardCharsets.US_ASCII);
+
+    private MailMessageDecoder() {
+    }
+
+    /**
+     * Decodes {@code buffer[start, end)}. The buffer's position and limit are left untouched.
+     */
+    static String decode(ByteBuffer buffer, int start, int end) {
+        StringBuilder content = new StringBuilder(Math.max(16, end - start));
+        int lineStart = start;
+
+        // Headers run until the first empty line
+        boolean inHeaders = true;
+        boolean inSubject = false;
+        while (inHeaders && lineStart < end) {
+            int lineEnd = lineEnd(buffer, lineStart, end);
+            int contentEnd = trimCarriageReturn(buffer, lineStart, lineEnd);
+            if (contentEnd == lineStart) {
+                inHeaders = false;
+            } else if (startsWithIgnoreCase(buffer, lineStart, contentEnd, SUBJECT)) {
+                append(content, buffer, lineStart + SUBJECT.length, contentEnd);
+                inSubject = true;
+            } else if (inSubject && isFoldedLine(buffer.get(lineStart))) {
+                append(content, buffer, lineStart, contentEnd);
+            } else {
+                inSubject = false;
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (content.length() > 0) {
+            content.append('\n');
+        }
+
+        while (lineStart < end) {
+            int lineEnd = lineEnd(buffer, lineStart, end);
+            int contentEnd = trimCarriageReturn(buffer, lineStart, lineEnd);
+            int from = lineStart;
+            if (isEscapedFrom(buffer, from, contentEnd)) {
+                from++;
+            }
+            append(content, buffer, from, contentEnd);
+            content.append('\n');
+            lineStart = lineEnd + 1;
+        }
+        return content.toString().trim();
+    }
+
+    private static int lineEnd(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int trimCarriageReturn(ByteBuffer buffer, int from, int lineEnd) {
+        return lineEnd > from && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private static boolean isFoldedLine(byte first) {
+        return first == ' ' || first == '\t';
+    }
+
+    private static boolean isEscapedFrom(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        while (i < end && buffer.get(i) == '>') {
+            i++;
+        }
+        return i > from && end - i >= 5
+            && buffer.get(i) == 'F' && buffer.get(i + 1) == 'r' && buffer.get(i + 2) == 'o'
+            && buffer.get(i + 3) == 'm' && buffer.get(i + 4) == ' ';
+    }
+
+    private static boolean startsWithIgnoreCase(ByteBuffer buffer, int from, int end, byte[] prefix) {
+        if (end - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (Character.toLowerCase(buffer.get(from + i)) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void append(StringBuilder content, ByteBuffer buffer, int from, int end) {
+        byte[] bytes = new byte[end - from];
+        ByteBuffer line = buffer.duplicate();
+        line.limit(end);
+        line.position(from);
+        line.get(bytes);
+        content.append(new String(bytes, StandardCharsets.UTF_8));
+    }
+}
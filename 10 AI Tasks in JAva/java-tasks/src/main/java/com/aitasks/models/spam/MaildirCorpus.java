@@ -0,0 +1,110 @@
+package com.aitasks.models.spam;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the messages of a Maildir ({@code cur/} and {@code new/}) as labelled
+ * training data. Directory entries are listed lazily and each message file is
+ * memory-mapped and decoded only when the iterator hands it out. A directory
+ * listing stays open until the iterator moves past it or is closed.
+ */
+public class MaildirCorpus implements Iterable<EmailMessage> {
+    private static final String[] SUBDIRECTORIES = {"cur", "new"};
+
+    private final Path directory;
+    private final EmailType type;
+
+    public MaildirCorpus(Path directory, EmailType type) {
+        this.directory = directory;
+        this.type = type;
+    }
+
+    @Override
+    public CloseableIterator<EmailMessage> iterator() {
+        return new MessageIterator();
+    }
+
+    private class MessageIterator implements CloseableIterator<EmailMessage> {
+        private int subdirectory;
+        private DirectoryStream<Path> stream;
+        private Iterator<Path> files;
+        private Path nextFile;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextFile == null) {
+                    if (files != null && files.hasNext()) {
+                        Path file = files.next();
+                        if (Files.isRegularFile(file)) {
+                            nextFile = file;
+                        }
+                    } else if (!openNextSubdirectory()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Failed to list maildir " + directory, e);
+            }
+        }
+
+        @Override
+        public EmailMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Path file = nextFile;
+            nextFile = null;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int size = (int) Math.min(Integer.MAX_VALUE, channel.size());
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return new EmailMessage(MailMessageDecoder.decode(buffer, 0, size), type);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read message " + file, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            subdirectory = SUBDIRECTORIES.length;
+            nextFile = null;
+            files = null;
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    // Nothing left to list from it anyway
+                }
+                stream = null;
+            }
+        }
+
+        private boolean openNextSubdirectory() throws IOException {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+                files = null;
+            }
+            while (subdirectory < SUBDIRECTORIES.length) {
+                Path path = directory.resolve(SUBDIRECTORIES[subdirectory++]);
+                if (Files.isDirectory(path)) {
+                    stream = Files.newDirectoryStream(path);
+                    files = stream.iterator();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.aitasks.models.spam;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the messages of an mbox file as labelled training data. The file is
+ * memory-mapped one window at a time and each message is only decoded when the
+ * iterator hands it out, so heap use does not depend on the size of the file.
+ * The file stays open until the iterator reaches the end or is closed.
+ */
+public class MboxCorpus implements Iterable<EmailMessage> {
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final Path path;
+    private final EmailType type;
+
+    public MboxCorpus(Path path, EmailType type) {
+        this.path = path;
+        this.type = type;
+    }
+
+    @Override
+    public CloseableIterator<EmailMessage> iterator() {
+        try {
+            return new MessageIterator(FileChannel.open(path, StandardOpenOption.READ));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open mbox " + path, e);
+        }
+    }
+
+    private class MessageIterator implements CloseableIterator<EmailMessage> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+
+        MessageIterator(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (channel.isOpen() && position < fileSize) {
+                return true;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public EmailMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                int windowSize = WINDOW_SIZE;
+                while (true) {
+                    map(position, windowSize);
+                    int start = (int) (position - windowStart);
+                    int end = findNextMessage(start);
+                    boolean windowReachesEof = windowStart + window.limit() >= fileSize;
+                    boolean windowAtMaximum = window.limit() == Integer.MAX_VALUE;
+                    if (end >= 0 || windowReachesEof || windowAtMaximum) {
+                        if (end < 0) {
+                            end = window.limit();
+                        }
+                        position = windowStart + end;
+                        return new EmailMessage(
+                            MailMessageDecoder.decode(window, skipFromLine(start, end), end), type);
+                    }
+                    // Message runs past the window: remap from its start, growing the
+                    // window only if the message alone does not fit
+                    if (windowStart == position) {
+                        windowSize = (int) Math.min(Integer.MAX_VALUE, (long) windowSize * 2);
+                    }
+                    window = null;
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Failed to read mbox " + path, e);
+            }
+        }
+
+        private void map(long from, int size) throws IOException {
+            if (window != null && from >= windowStart && from < windowStart + window.limit()) {
+                return;
+            }
+            long length = Math.min(size, fileSize - from);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+            windowStart = from;
+        }
+
+        /**
+         * Returns the offset of the next "From " separator line after {@code start}, or -1.
+         */
+        private int findNextMessage(int start) {
+            int limit = window.limit();
+            for (int i = start + 1; i + 5 <= limit; i++) {
+                if (window.get(i - 1) == '\n' && window.get(i) == 'F' && window.get(i + 1) == 'r'
+                        && window.get(i + 2) == 'o' && window.get(i + 3) == 'm'
+                        && window.get(i + 4) == ' ') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int skipFromLine(int start, int end) {
+            if (end - start < 5 || window.get(start) != 'F') {
+                return start;
+            }
+            for (int i = start; i < end; i++) {
+                if (window.get(i) == '\n') {
+                    return i + 1;
+                }
+            }
+            return end;
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to read from it anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.aitasks.models.spam;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * MinHash/LSH index of recently classified messages. Messages from the same
+ * spam campaign share most of their word bigrams, so their MinHash signatures
+ * collide in at least one LSH band. Entries are bounded in number and expire
+ * after a fixed time to live. {@link #clear()} starts a new generation, and
+ * verdicts computed under an older one are not stored, so a classification
+ * that raced with a model swap cannot bring back a stale verdict.
+ */
+public class NearDuplicateCache {
+    private static final int ROWS_PER_BAND = 4;
+    private static final String DELIMITERS = " \r\n\t.,;:'\"()?!";
+
+    private final int numHashes;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final double minSimilarity;
+    private final long[] multipliers;
+    private final long[] offsets;
+
+    // Oldest first, so both expiry and capacity eviction pop from the head
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>();
+    private final Map<Long, Entry> bandIndex = new HashMap<>();
+    private long nextId;
+    private long generation;
+
+    private long lookups;
+    private long hits;
+    private long evictions;
+    private long missNanos;
+    private long misses;
+
+    public NearDuplicateCache(int bands, int maxEntries, long ttlMillis, double minSimilarity) {
+        if (bands < 1) {
+            throw new IllegalArgumentException("Band count must be positive: " + bands);
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Maximum entry count must be positive: " + maxEntries);
+        }
+        this.numHashes = bands * ROWS_PER_BAND;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.minSimilarity = minSimilarity;
+        this.multipliers = new long[numHashes];
+        this.offsets = new long[numHashes];
+        Random random = new Random(0x5EED);
+        for (int i = 0; i < numHashes; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            offsets[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Computes the MinHash signature over the message's lower-cased word bigrams,
+     * or returns null if the message has no words.
+     */
+    public int[] signature(String text) {
+        int[] signature = new int[numHashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int words = 0;
+        long previous = 0;
+        long current = 0;
+        boolean inWord = false;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (DELIMITERS.indexOf(c) < 0) {
+                current = current * 1_000_003L + Character.toLowerCase(c);
+                inWord = true;
+            } else if (inWord) {
+                if (words > 0) {
+                    addShingle(signature, previous * 31 + current);
+                }
+                previous = current;
+                current = 0;
+                inWord = false;
+                words++;
+            }
+        }
+        if (words == 1) {
+            // Single-word messages still get a shingle of their own
+            addShingle(signature, previous);
+        }
+        return words == 0 ? null : signature;
+    }
+
+    /**
+     * Returns the cached spam probability of a near-duplicate, or NaN on a miss.
+     */
+    public synchronized double lookup(int[] signature) {
+        lookups++;
+        evictExpired(System.currentTimeMillis());
+        for (int band = 0; band < numHashes / ROWS_PER_BAND; band++) {
+            Entry candidate = bandIndex.get(bandKey(signature, band));
+            if (candidate != null && similarity(signature, candidate.signature) >= minSimilarity) {
+                hits++;
+                return candidate.spamProbability;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * The current generation. Read it before reading the model a message is scored with.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Records a freshly classified message and how long the classification took.
+     * The verdict is dropped if the cache has been cleared since {@code generation}
+     * was read, as it came from the model that was replaced.
+     */
+    public synchronized void put(int[] signature, long generation, double spamProbability, long classifyNanos) {
+        misses++;
+        missNanos += classifyNanos;
+        if (generation != this.generation) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        while (entries.size() >= maxEntries) {
+            evict(entries.values().iterator());
+        }
+        Entry entry = new Entry(nextId++, signature, spamProbability, now);
+        entries.put(entry.id, entry);
+        for (int band = 0; band < numHashes / ROWS_PER_BAND; band++) {
+            bandIndex.put(bandKey(signature, band), entry);
+        }
+    }
+
+    /**
+     * Drops all cached verdicts and starts a new generation, e.g. after the
+     * model has been retrained.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bandIndex.clear();
+        generation++;
+    }
+
+    public synchronized double getHitRate() {
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Estimated classification time avoided: hits times the mean cost of a miss.
+     */
+    public synchronized long getTimeSavedNanos() {
+        return misses == 0 ? 0 : hits * (missNanos / misses);
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("NearDuplicateCache[entries=%d, lookups=%d, hits=%d, hitRate=%.1f%%, "
+                + "timeSaved=%d ms, evictions=%d]",
+            entries.size(), lookups, hits, getHitRate() * 100,
+            getTimeSavedNanos() / 1_000_000, evictions);
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (now - entry.createdMillis < ttlMillis) {
+                break;
+            }
+            removeBands(entry);
+            oldest.remove();
+            evictions++;
+        }
+    }
+
+    private void evict(Iterator<Entry> oldest) {
+        Entry entry = oldest.next();
+        removeBands(entry);
+        oldest.remove();
+        evictions++;
+    }
+
+    private void removeBands(Entry entry) {
+        for (int band = 0; band < numHashes / ROWS_PER_BAND; band++) {
+            // A newer entry may have taken over the bucket; leave that one alone
+            bandIndex.remove(bandKey(entry.signature, band), entry);
+        }
+    }
+
+    private void addShingle(int[] signature, long shingle) {
+        for (int i = 0; i < numHashes; i++) {
+            int hash = (int) ((shingle * multipliers[i] + offsets[i]) >>> 32);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+            }
+        }
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        int start = band * ROWS_PER_BAND;
+        for (int i = start; i < start + ROWS_PER_BAND; i++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return key;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final int[] signature;
+        private final double spamProbability;
+        private final long createdMillis;
+
+        Entry(long id, int[] signature, double spamProbability, long createdMillis) {
+            this.id = id;
+            this.signature = signature;
+            this.spamProbability = spamProbability;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.aitasks.models.spam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds a {@link SpamModel} by sharding the corpus across a fork/join pool.
+ * Each shard tokenizes its messages into its own dictionary and primitive count
+ * tables; shards are merged left to right, so feature ids end up in corpus
+ * first-occurrence order.
+ * <p>
+ * The vocabulary is cut the way {@code StringToWordVector} cuts it for
+ * {@code wordsToKeep}: per class, words are ranked by their total number of
+ * occurrences and every word at least as frequent as the {@code wordsToKeep}-th
+ * is kept (ties included); the model keeps the union over both classes. Word
+ * counts are per-message presence, like the filter's default binary output, so
+ * the result scores the same as {@link SpamClassifier#buildModel}.
+ */
+final class ParallelSpamTrainer {
+    private static final int SHARD_SIZE = 4_096;
+
+    private final ForkJoinPool pool;
+    private final int wordsToKeep;
+
+    ParallelSpamTrainer(ForkJoinPool pool, int wordsToKeep) {
+        if (wordsToKeep < 1) {
+            throw new IllegalArgumentException("Words to keep must be positive: " + wordsToKeep);
+        }
+        this.pool = pool;
+        this.wordsToKeep = wordsToKeep;
+    }
+
+    SpamModel train(List<EmailMessage> messages) {
+        return pool.invoke(new ShardTask(messages, 0, messages.size())).toModel(wordsToKeep);
+    }
+
+    /**
+     * Trains on corpora that do not fit in memory: messages are pulled one at a
+     * time in batches of {@code batchSize}, each batch is sharded across the pool
+     * and its counts are merged into the running total before the next batch is
+     * read. Batches may span corpora. A {@link CloseableIterator} is closed once
+     * its corpus is done or training fails.
+     */
+    SpamModel train(Iterable<? extends Iterable<EmailMessage>> corpora, int batchSize, BatchListener listener) {
+        ShardCounts total = new ShardCounts();
+        List<EmailMessage> batch = new ArrayList<>(batchSize);
+        long messages = 0;
+        for (Iterable<EmailMessage> corpus : corpora) {
+            Iterator<EmailMessage> iterator = corpus.iterator();
+            try {
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() == batchSize) {
+                        messages += mergeBatch(total, batch);
+                        listener.batchTrained(messages, total.dictionary.size());
+                    }
+                }
+            } finally {
+                if (iterator instanceof CloseableIterator) {
+                    ((CloseableIterator<?>) iterator).close();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            messages += mergeBatch(total, batch);
+            listener.batchTrained(messages, total.dictionary.size());
+        }
+        return total.toModel(wordsToKeep);
+    }
+
+    private int mergeBatch(ShardCounts total, List<EmailMessage> batch) {
+        int size = batch.size();
+        total.merge(pool.invoke(new ShardTask(batch, 0, size)));
+        batch.clear();
+        return size;
+    }
+
+    /**
+     * Progress callback for streaming training.
+     */
+    interface BatchListener {
+        void batchTrained(long messagesSoFar, int vocabularySize);
+    }
+
+    private static final class ShardTask extends RecursiveTask<ShardCounts> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<EmailMessage> messages;
+        private final int from;
+        private final int to;
+
+        ShardTask(List<EmailMessage> messages, int from, int to) {
+            this.messages = messages;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ShardCounts compute() {
+            if (to - from <= SHARD_SIZE) {
+                ShardCounts counts = new ShardCounts();
+                for (int i = from; i < to; i++) {
+                    EmailMessage message = messages.get(i);
+                    counts.add(message.getContent(), SpamModel.classIndexOf(message.getType()));
+                }
+                return counts;
+            }
+            int mid = (from + to) >>> 1;
+            ShardTask right = new ShardTask(messages, mid, to);
+            right.fork();
+            ShardCounts left = new ShardTask(messages, from, mid).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+
+    /**
+     * Per-shard sufficient statistics: document counts per class, and per-message
+     * word presence counts and total word occurrences, both laid out as
+     * [featureId * NUM_CLASSES + classIndex].
+     */
+    private static final class ShardCounts {
+        private final TokenDictionary dictionary = new TokenDictionary(1_024);
+        private final HashedFeatureVectorizer vectorizer = new HashedFeatureVectorizer(dictionary);
+        private final int[] classCounts = new int[SpamModel.NUM_CLASSES];
+        private int[] wordCounts = new int[1_024 * SpamModel.NUM_CLASSES];
+        private int[] occurrences = new int[1_024 * SpamModel.NUM_CLASSES];
+
+        void add(String text, int classIndex) {
+            HashedFeatureVectorizer.FeatureBuffer features = vectorizer.vectorizeAndGrow(text);
+            ensureCapacity(dictionary.size());
+            classCounts[classIndex]++;
+            for (int i = 0; i < features.size(); i++) {
+                int slot = features.feature(i) * SpamModel.NUM_CLASSES + classIndex;
+                wordCounts[slot]++;
+                occurrences[slot] += features.occurrences(i);
+            }
+        }
+
+        /**
+         * Adds the other shard's counts, appending its unseen tokens in its own id order.
+         */
+        void merge(ShardCounts other) {
+            for (int c = 0; c < SpamModel.NUM_CLASSES; c++) {
+                classCounts[c] += other.classCounts[c];
+            }
+            for (int id = 0; id < other.dictionary.size(); id++) {
+                int target = dictionary.add(other.dictionary.token(id));
+                ensureCapacity(dictionary.size());
+                for (int c = 0; c < SpamModel.NUM_CLASSES; c++) {
+                    wordCounts[target * SpamModel.NUM_CLASSES + c] +=
+                        other.wordCounts[id * SpamModel.NUM_CLASSES + c];
+                    occurrences[target * SpamModel.NUM_CLASSES + c] +=
+                        other.occurrences[id * SpamModel.NUM_CLASSES + c];
+                }
+            }
+        }
+
+        /**
+         * Builds the model over the words that survive the per-class {@code wordsToKeep} cut.
+         */
+        SpamModel toModel(int wordsToKeep) {
+            int vocabularySize = dictionary.size();
+            boolean[] keep = new boolean[vocabularySize];
+            int kept = 0;
+            for (int c = 0; c < SpamModel.NUM_CLASSES; c++) {
+                int minimum = minimumOccurrences(c, wordsToKeep);
+                for (int id = 0; id < vocabularySize; id++) {
+                    if (!keep[id] && occurrences[id * SpamModel.NUM_CLASSES + c] >= minimum) {
+                        keep[id] = true;
+                        kept++;
+                    }
+                }
+            }
+
+            TokenDictionary keptDictionary = new TokenDictionary(kept);
+            int[] keptCounts = new int[kept * SpamModel.NUM_CLASSES];
+            for (int id = 0; id < vocabularySize; id++) {
+                if (keep[id]) {
+                    int target = keptDictionary.add(dictionary.token(id));
+                    System.arraycopy(wordCounts, id * SpamModel.NUM_CLASSES,
+                        keptCounts, target * SpamModel.NUM_CLASSES, SpamModel.NUM_CLASSES);
+                }
+            }
+            return SpamModel.fromCounts(keptDictionary, classCounts, keptCounts);
+        }
+
+        /**
+         * Occurrence count a word needs to be kept for the class: the count of the
+         * class's {@code wordsToKeep}-th most frequent word, or 1 if the class has
+         * fewer words than that.
+         */
+        private int minimumOccurrences(int classIndex, int wordsToKeep) {
+            int vocabularySize = dictionary.size();
+            int[] counts = new int[vocabularySize];
+            int words = 0;
+            for (int id = 0; id < vocabularySize; id++) {
+                int count = occurrences[id * SpamModel.NUM_CLASSES + classIndex];
+                if (count > 0) {
+                    counts[words++] = count;
+                }
+            }
+            if (words < wordsToKeep) {
+                return 1;
+            }
+            Arrays.sort(counts, 0, words);
+            return counts[words - wordsToKeep];
+        }
+
+        private void ensureCapacity(int vocabularySize) {
+            int required = vocabularySize * SpamModel.NUM_CLASSES;
+            if (required > wordCounts.length) {
+                int capacity = Math.max(required, wordCounts.length << 1);
+                wordCounts = Arrays.copyOf(wordCounts, capacity);
+                occurrences = Arrays.copyOf(occurrences, capacity);
+            }
+        }
+    }
+}
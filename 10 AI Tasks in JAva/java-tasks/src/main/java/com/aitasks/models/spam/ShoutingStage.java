@@ -0,0 +1,45 @@
+package com.aitasks.models.spam;
+
+/**
+ * Cascade stage for the obvious shouting pattern of spam such as
+ * "CONGRATULATIONS! You've won!!!": mostly upper-case letters together with
+ * repeated exclamation marks.
+ */
+public class ShoutingStage implements SpamCascade.Stage {
+    private static final int MIN_LETTERS = 12;
+
+    private final double minUpperCaseRatio;
+    private final int minExclamations;
+
+    public ShoutingStage(double minUpperCaseRatio, int minExclamations) {
+        this.minUpperCaseRatio = minUpperCaseRatio;
+        this.minExclamations = minExclamations;
+    }
+
+    @Override
+    public String getName() {
+        return "shouting";
+    }
+
+    @Override
+    public double evaluate(String content) {
+        int letters = 0;
+        int upper = 0;
+        int exclamations = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (Character.isLetter(c)) {
+                letters++;
+                if (Character.isUpperCase(c)) {
+                    upper++;
+                }
+            } else if (c == '!') {
+                exclamations++;
+            }
+        }
+        boolean shouting = letters >= MIN_LETTERS
+            && upper >= minUpperCaseRatio * letters
+            && exclamations >= minExclamations;
+        return shouting ? 1.0 : Double.NaN;
+    }
+}
@@ -0,0 +1,90 @@
+package com.aitasks.models.spam;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ordered chain of cheap pre-filters that settle clear-cut messages before the
+ * Naive Bayes model runs. Each stage either returns a spam probability or NaN to
+ * pass the message on; the first stage with an answer wins. Every stage counts
+ * how many messages it saw and how many it settled.
+ */
+public class SpamCascade {
+    /**
+     * A single pre-filter. Implementations must be thread-safe for concurrent reads.
+     */
+    public interface Stage {
+        String getName();
+
+        /**
+         * Returns the spam probability if the stage can decide, or NaN to defer.
+         */
+        double evaluate(String content);
+    }
+
+    private final List<Stage> stages = new ArrayList<>();
+    private final List<LongAdder> evaluated = new ArrayList<>();
+    private final List<LongAdder> settled = new ArrayList<>();
+
+    public SpamCascade addStage(Stage stage) {
+        stages.add(stage);
+        evaluated.add(new LongAdder());
+        settled.add(new LongAdder());
+        return this;
+    }
+
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Runs the stages in order and returns the first decision, or NaN if the model
+     * has to decide.
+     */
+    public double evaluate(String content) {
+        for (int i = 0; i < stages.size(); i++) {
+            evaluated.get(i).increment();
+            double probability = stages.get(i).evaluate(content);
+            if (!Double.isNaN(probability)) {
+                settled.get(i).increment();
+                return probability;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Fraction of the messages reaching the stage that it settled.
+     */
+    public double getHitRate(int stage) {
+        long seen = evaluated.get(stage).sum();
+        return seen == 0 ? 0.0 : (double) settled.get(stage).sum() / seen;
+    }
+
+    /**
+     * Fraction of all messages settled before the model, i.e. model work avoided.
+     */
+    public double getSettledRate() {
+        long seen = evaluated.isEmpty() ? 0 : evaluated.get(0).sum();
+        if (seen == 0) {
+            return 0.0;
+        }
+        long total = 0;
+        for (LongAdder count : settled) {
+            total += count.sum();
+        }
+        return (double) total / seen;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("SpamCascade[");
+        for (int i = 0; i < stages.size(); i++) {
+            report.append(String.format("%s: %d/%d (%.1f%%), ", stages.get(i).getName(),
+                settled.get(i).sum(), evaluated.get(i).sum(), getHitRate(i) * 100));
+        }
+        return report.append(String.format("model avoided: %.1f%%]", getSettledRate() * 100)).toString();
+    }
+}
@@ -1,8 +1,6 @@
 package com.aitasks.models.spam;
 
 import com.aitasks.core.BaseAITask;
-import weka.classifiers.Classifier;
-import weka.classifiers.bayes.NaiveBayes;
 import weka.core.Attribute;
 import weka.core.DenseInstance;
 import weka.core.Instance;
@@ -10,12 +8,40 @@ import weka.core.Instances;
 import weka.filters.Filter;
 import weka.filters.unsupervised.attribute.StringToWordVector;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Spam classifier serving from an immutable {@link SpamModel} published through an
+ * atomic reference. Readers classify lock-free against whichever model is current;
+ * writers (training, updates) are serialized, build the next model on the side and
+ * swap it in atomically.
+ * <p>
+ * {@link #initialize()} loads the snapshot at {@code model.spam.snapshot}, relative
+ * to the working directory by default. Without one it trains on built-in examples
+ * and, unless {@code spam.snapshot.save.on.start} is false, writes that model there
+ * so the next start can load it.
+ */
 public class SpamClassifier extends BaseAITask {
-    private Classifier classifier;
-    private StringToWordVector filter;
-    private Instances trainingHeader;
+    private final AtomicReference<SpamModel> currentModel = new AtomicReference<>();
+    private final Object writeLock = new Object();
+    private ForkJoinPool trainingPool;
+    private Path snapshotPath;
+    private NearDuplicateCache duplicateCache;
+    private SpamCascade cascade;
+    private int wordsToKeep;
+    private double spamThreshold;
+    private int updateBatchSize;
+    private long updateMaxDelayMillis;
+    private final List<EmailMessage> pendingUpdates = new ArrayList<>(); // guarded by writeLock
     private final Random random = new Random();
     
     private final String[] wittyResponses = {
@@ -30,30 +56,41 @@ public class SpamClassifier extends BaseAITask {
     public void initialize() throws Exception {
         logger.info("Initializing SpamClassifier...");
         try {
-            // Create attributes (message content and class)
-            ArrayList<Attribute> attributes = new ArrayList<>();
-            attributes.add(new Attribute("content", (ArrayList<String>) null));
+            wordsToKeep = Integer.parseInt(config.getProperty("spam.words.to.keep", "1000"));
+            spamThreshold = Double.parseDouble(config.getProperty("spam.threshold", "0.5"));
+            updateBatchSize = Integer.parseInt(config.getProperty("spam.update.batch.size", "100"));
+            if (updateBatchSize < 1) {
+                throw new IllegalArgumentException(
+                    "spam.update.batch.size must be positive: " + updateBatchSize);
+            }
+            updateMaxDelayMillis = Long.parseLong(config.getProperty("spam.update.max.delay.ms", "1000"));
             
-            ArrayList<String> classValues = new ArrayList<>();
-            classValues.add("ham");
-            classValues.add("spam");
-            attributes.add(new Attribute("@@class@@", classValues));
+            int parallelism = Integer.parseInt(config.getProperty("spam.training.parallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+            trainingPool = new ForkJoinPool(parallelism);
             
-            // Create dataset structure
-            trainingHeader = new Instances("SpamClassification", attributes, 0);
-            trainingHeader.setClassIndex(1);
+            // Optional near-duplicate cache in front of the model for spam campaigns
+            if (Boolean.parseBoolean(config.getProperty("spam.dedup.enabled", "false"))) {
+                duplicateCache = new NearDuplicateCache(
+                    Integer.parseInt(config.getProperty("spam.dedup.bands", "16")),
+                    Integer.parseInt(config.getProperty("spam.dedup.max.entries", "100000")),
+                    Long.parseLong(config.getProperty("spam.dedup.ttl.seconds", "600")) * 1000,
+                    Double.parseDouble(config.getProperty("spam.dedup.similarity", "0.8")));
+            }
             
-            // Initialize filter
-            filter = new StringToWordVector();
-            filter.setAttributeIndices("first");
-            filter.setWordsToKeep(1000);
-            filter.setLowerCaseTokens(true);
+            // Optional cascade of cheap pre-filters that settle clear cases before the model
+            if (Boolean.parseBoolean(config.getProperty("spam.cascade.enabled", "false"))) {
+                cascade = createCascade();
+            }
             
-            // Initialize classifier
-            classifier = new NaiveBayes();
-            
-            // Train with initial data
-            trainWithDefaultData();
+            // Load the last snapshot if there is one, otherwise train with initial data
+            snapshotPath = Paths.get(config.getProperty("model.spam.snapshot", "models/spam-model.bin"));
+            if (!loadSnapshot()) {
+                trainWithDefaultData();
+                if (Boolean.parseBoolean(config.getProperty("spam.snapshot.save.on.start", "true"))) {
+                    saveSnapshotQuietly();
+                }
+            }
             
             initialized = true;
             logger.info("SpamClassifier initialized successfully");
@@ -63,6 +100,53 @@ public class SpamClassifier extends BaseAITask {
         }
     }
     
+    /**
+     * Publishes the model in the snapshot file, if there is one. A snapshot that
+     * cannot be read is reported and left for the caller to replace by retraining.
+     */
+    private boolean loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return false;
+        }
+        try {
+            long start = System.nanoTime();
+            SpamModel loaded = SpamModelSnapshot.read(snapshotPath);
+            currentModel.set(loaded);
+            logger.info("Loaded spam model snapshot {} ({} features) in {} ms",
+                snapshotPath, loaded.vocabularySize(), (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Skipping unreadable spam model snapshot {}, retraining", snapshotPath, e);
+            return false;
+        }
+    }
+    
+    private SpamCascade createCascade() throws IOException {
+        SpamCascade stages = new SpamCascade();
+        
+        Path fingerprints = Paths.get(config.getProperty("spam.cascade.fingerprints",
+            "models/spam-fingerprints.txt"));
+        if (Files.exists(fingerprints)) {
+            // One known spam message per line
+            List<String> knownSpam = Files.readAllLines(fingerprints);
+            FingerprintStage fingerprintStage = new FingerprintStage(
+                Math.max(1_000, knownSpam.size() * 2), 0.001);
+            knownSpam.forEach(fingerprintStage::addKnownSpam);
+            stages.addStage(fingerprintStage);
+            logger.info("Loaded {} known spam fingerprints", knownSpam.size());
+        }
+        
+        String keywords = config.getProperty("spam.cascade.keywords", "");
+        if (!keywords.isBlank()) {
+            stages.addStage(new KeywordStage(Arrays.asList(keywords.split(","))));
+        }
+        
+        stages.addStage(new ShoutingStage(
+            Double.parseDouble(config.getProperty("spam.cascade.caps.ratio", "0.6")),
+            Integer.parseInt(config.getProperty("spam.cascade.caps.exclamations", "2"))));
+        return stages;
+    }
+    
     private void trainWithDefaultData() throws Exception {
         // Sample training data
         List<EmailMessage> trainingData = new ArrayList<>();
@@ -98,8 +182,27 @@ public class SpamClassifier extends BaseAITask {
         train(trainingData);
     }
     
+    /**
+     * Retrains on the full corpus with the Weka filter and classifier and swaps the
+     * result in atomically. Classification continues against the previous model
+     * until the swap.
+     */
     public void train(List<EmailMessage> trainingData) throws Exception {
-        Instances trainingInstances = new Instances(trainingHeader);
+        synchronized (writeLock) {
+            SpamModel trained = buildModel(trainingData, wordsToKeep);
+            publish(trained);
+            logger.info("Classifier trained with {} instances, {} features",
+                trainingData.size(), trained.vocabularySize());
+        }
+    }
+    
+    /**
+     * Builds a model with the Weka filter without publishing it. Every call gets
+     * its own dataset header, because Weka string attributes collect every value
+     * set on them; nothing is shared, so evaluation folds can call it concurrently.
+     */
+    SpamModel buildModel(List<EmailMessage> trainingData, int wordsToKeep) throws Exception {
+        Instances trainingInstances = newDataset(trainingData.size());
         
         for (EmailMessage email : trainingData) {
             Instance instance = createInstance(email.getContent(), 
@@ -107,49 +210,349 @@ public class SpamClassifier extends BaseAITask {
             trainingInstances.add(instance);
         }
         
-        // Apply filter
+        // Apply a fresh filter so no shared Weka state is mutated
+        StringToWordVector filter = new StringToWordVector();
+        filter.setAttributeIndices("first");
+        filter.setWordsToKeep(wordsToKeep);
+        filter.setLowerCaseTokens(true);
         filter.setInputFormat(trainingInstances);
         Instances filteredData = Filter.useFilter(trainingInstances, filter);
         
-        // Train classifier
-        classifier.buildClassifier(filteredData);
-        logger.info("Classifier trained with {} instances", trainingData.size());
+        // Compile the multinomial Naive Bayes model from the filter's dictionary
+        return SpamModel.compile(filteredData);
+    }
+    
+    /**
+     * Runs {@link #train(List)} on the training pool. Readers keep classifying
+     * against the current model while the next one is built.
+     */
+    public CompletableFuture<Void> retrainAsync(List<EmailMessage> trainingData) {
+        checkInitialized();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                train(trainingData);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, trainingPool);
+    }
+    
+    /**
+     * Trains a fresh model on a large corpus by sharding it across the training
+     * fork/join pool and merging the per-shard counts. It applies the filter's
+     * per-class {@code wordsToKeep} cut, so the result scores the same as
+     * {@link #train(List)}; {@code SpamTrainingBenchmark} measures both.
+     */
+    public void trainParallel(List<EmailMessage> trainingData) {
+        checkInitialized();
+        long start = System.nanoTime();
+        SpamModel trained;
+        synchronized (writeLock) {
+            trained = new ParallelSpamTrainer(trainingPool, wordsToKeep).train(trainingData);
+            publish(trained);
+        }
+        logger.info("Classifier trained in parallel with {} instances, {} features in {} ms",
+            trainingData.size(), trained.vocabularySize(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Trains a fresh model from corpora that are streamed rather than held in
+     * memory, such as {@link MboxCorpus} or {@link MaildirCorpus}. Messages are
+     * read in batches of {@code batchSize} and each batch is sharded across the
+     * training pool, so heap use is bounded by the batch and the vocabulary, not
+     * by the size of the corpus. Corpora are read one after another and each
+     * one's iterator is closed when it is done. The {@code wordsToKeep} cut is
+     * applied once every corpus has been counted.
+     */
+    public void trainStreaming(List<? extends Iterable<EmailMessage>> corpora, int batchSize) {
+        checkInitialized();
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            ParallelSpamTrainer trainer = new ParallelSpamTrainer(trainingPool, wordsToKeep);
+            SpamModel trained = trainer.train(corpora, batchSize,
+                (messages, features) -> logger.info("Streamed {} messages, {} features", messages, features));
+            publish(trained);
+            logger.info("Classifier trained from {} corpora, {} features in {} ms",
+                corpora.size(), trained.vocabularySize(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    /**
+     * Queues a single labelled message (e.g. a user spam report) and folds the
+     * queue into the model once {@code spam.update.batch.size} messages are
+     * waiting, or at the latest {@code spam.update.max.delay.ms} after the first
+     * of them was queued, so the copy of the model is paid once per batch rather
+     * than once per message. A delay of 0 applies every message straight away;
+     * {@link #flushUpdates()} applies the queue at any time.
+     */
+    public void update(EmailMessage email) {
+        checkInitialized();
+        synchronized (writeLock) {
+            pendingUpdates.add(email);
+            if (pendingUpdates.size() >= updateBatchSize || updateMaxDelayMillis <= 0) {
+                applyUpdates(Collections.emptyList());
+            } else if (pendingUpdates.size() == 1) {
+                // The first message of a batch bounds how long the batch can wait
+                CompletableFuture.runAsync(this::flushPendingUpdates,
+                    CompletableFuture.delayedExecutor(updateMaxDelayMillis, TimeUnit.MILLISECONDS, trainingPool));
+            }
+        }
+    }
+    
+    /**
+     * Folds labelled messages, along with any queued by {@link #update(EmailMessage)},
+     * into a copy of the model and publishes it once all of them are applied. Apart
+     * from the copy, the cost is proportional to the new messages only; the
+     * vocabulary grows as needed.
+     */
+    public void update(Iterable<EmailMessage> emails) {
+        checkInitialized();
+        synchronized (writeLock) {
+            applyUpdates(emails);
+        }
+    }
+    
+    /**
+     * Applies the messages queued by {@link #update(EmailMessage)}, if any.
+     */
+    public void flushUpdates() {
+        checkInitialized();
+        flushPendingUpdates();
+    }
+    
+    private void flushPendingUpdates() {
+        synchronized (writeLock) {
+            // The batch may have filled up and been applied already
+            if (!pendingUpdates.isEmpty()) {
+                applyUpdates(Collections.emptyList());
+            }
+        }
+    }
+    
+    /**
+     * Number of messages queued by {@link #update(EmailMessage)} and not yet applied.
+     */
+    public int getPendingUpdates() {
+        synchronized (writeLock) {
+            return pendingUpdates.size();
+        }
+    }
+    
+    private void applyUpdates(Iterable<EmailMessage> emails) {
+        SpamModel next = currentModel.get().copy();
+        int count = pendingUpdates.size();
+        for (EmailMessage email : pendingUpdates) {
+            next.add(email.getContent(), SpamModel.classIndexOf(email.getType()));
+        }
+        pendingUpdates.clear();
+        for (EmailMessage email : emails) {
+            next.add(email.getContent(), SpamModel.classIndexOf(email.getType()));
+            count++;
+        }
+        publish(next);
+        logger.info("Model updated with {} messages, {} features", count, next.vocabularySize());
+    }
+    
+    /**
+     * Saves the current model, with any queued updates applied, to the configured
+     * snapshot path so the next {@link #initialize()} can load it instead of retraining.
+     */
+    public void saveSnapshot() throws IOException {
+        saveSnapshot(snapshotPath);
+    }
+    
+    public void saveSnapshot(Path path) throws IOException {
+        flushUpdates();
+        SpamModel model = currentModel.get();
+        SpamModelSnapshot.write(model, path);
+        logger.info("Saved spam model snapshot {} ({} features)", path, model.vocabularySize());
+    }
+    
+    private void saveSnapshotQuietly() {
+        try {
+            SpamModelSnapshot.write(currentModel.get(), snapshotPath);
+        } catch (IOException e) {
+            logger.warn("Could not save spam model snapshot {}: {}", snapshotPath, e.getMessage());
+        }
     }
     
     public ClassificationResult classify(String emailContent) {
         checkInitialized();
         try {
-            // Create test instance
-            Instance instance = createInstance(emailContent, "ham", trainingHeader);
+            if (cascade != null) {
+                double settled = cascade.evaluate(emailContent);
+                if (!Double.isNaN(settled)) {
+                    return toResult(emailContent, settled);
+                }
+            }
             
-            // Filter instance
-            Instances testData = new Instances(trainingHeader, 0);
-            testData.add(instance);
-            Instances filteredTest = Filter.useFilter(testData, filter);
+            int[] signature = duplicateCache != null ? duplicateCache.signature(emailContent) : null;
+            long generation = 0;
+            if (signature != null) {
+                double cached = duplicateCache.lookup(signature);
+                if (!Double.isNaN(cached)) {
+                    return toResult(emailContent, cached);
+                }
+                // Read before the model: publish() swaps the model first, then clears
+                generation = duplicateCache.getGeneration();
+            }
             
-            // Get prediction
-            double[] distribution = classifier.distributionForInstance(filteredTest.firstInstance());
-            double spamProbability = distribution[1]; // Probability of being spam
-            
-            boolean isSpam = spamProbability > 0.5;
-            String wittyResponse = isSpam ? getRandomWittyResponse() : "Looks legitimate! 📧";
-            
-            return new ClassificationResult(
-                emailContent,
-                isSpam,
-                spamProbability,
-                wittyResponse
-            );
+            // Score directly against the compiled model, no Instances or Filter per call
+            long start = System.nanoTime();
+            double spamProbability = currentModel.get().spamProbability(emailContent);
+            if (signature != null) {
+                duplicateCache.put(signature, generation, spamProbability, System.nanoTime() - start);
+            }
+            return toResult(emailContent, spamProbability);
             
         } catch (Exception e) {
             logger.error("Classification failed", e);
-            return new ClassificationResult(
-                emailContent,
-                false,
-                0.0,
-                "Classification failed: " + e.getMessage()
-            );
+            return failedResult(emailContent, e);
+        }
+    }
+    
+    /**
+     * Classifies a burst of messages in one pass and returns the results in input order.
+     */
+    public List<ClassificationResult> classifyBatch(List<String> emailContents) {
+        checkInitialized();
+        List<ClassificationResult> results = new ArrayList<>(emailContents.size());
+        try {
+            double[] probabilities = new double[emailContents.size()];
+            if (cascade == null) {
+                currentModel.get().spamProbabilities(emailContents, probabilities);
+            } else {
+                scoreThroughCascade(emailContents, probabilities);
+            }
+            for (int i = 0; i < probabilities.length; i++) {
+                results.add(toResult(emailContents.get(i), probabilities[i]));
+            }
+        } catch (Exception e) {
+            logger.error("Batch classification failed", e);
+            results.clear();
+            for (String emailContent : emailContents) {
+                results.add(failedResult(emailContent, e));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Lazily classifies a stream of messages, pulling and scoring them in batches
+     * of {@code batchSize}. Results are returned in input order.
+     */
+    public Iterator<ClassificationResult> classifyBatch(Iterator<String> emailContents, int batchSize) {
+        checkInitialized();
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
         }
+        return new Iterator<>() {
+            private final List<String> pending = new ArrayList<>(batchSize);
+            private Iterator<ClassificationResult> current = Collections.emptyIterator();
+            
+            @Override
+            public boolean hasNext() {
+                if (!current.hasNext() && emailContents.hasNext()) {
+                    pending.clear();
+                    while (pending.size() < batchSize && emailContents.hasNext()) {
+                        pending.add(emailContents.next());
+                    }
+                    current = classifyBatch(pending).iterator();
+                }
+                return current.hasNext();
+            }
+            
+            @Override
+            public ClassificationResult next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+    
+    private void scoreThroughCascade(List<String> emailContents, double[] probabilities) {
+        // Only messages the cascade leaves open go to the model, still as one batch
+        List<String> pending = new ArrayList<>();
+        int[] pendingIndex = new int[emailContents.size()];
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] = cascade.evaluate(emailContents.get(i));
+            if (Double.isNaN(probabilities[i])) {
+                pendingIndex[pending.size()] = i;
+                pending.add(emailContents.get(i));
+            }
+        }
+        double[] scored = new double[pending.size()];
+        currentModel.get().spamProbabilities(pending, scored);
+        for (int i = 0; i < scored.length; i++) {
+            probabilities[pendingIndex[i]] = scored[i];
+        }
+    }
+    
+    /**
+     * Returns the pre-filter cascade with its per-stage hit rates, or null when
+     * {@code spam.cascade.enabled} is off.
+     */
+    public SpamCascade getCascade() {
+        return cascade;
+    }
+    
+    /**
+     * Returns the near-duplicate cache with its hit rate and time-saved metrics,
+     * or null when {@code spam.dedup.enabled} is off.
+     */
+    public NearDuplicateCache getDuplicateCache() {
+        return duplicateCache;
+    }
+    
+    private void publish(SpamModel next) {
+        currentModel.set(next);
+        // Cached verdicts belong to the previous model; clearing also turns away
+        // verdicts still being computed with it
+        if (duplicateCache != null) {
+            duplicateCache.clear();
+        }
+    }
+    
+    private ClassificationResult toResult(String emailContent, double spamProbability) {
+        boolean isSpam = spamProbability > spamThreshold;
+        String wittyResponse = isSpam ? getRandomWittyResponse() : "Looks legitimate! 📧";
+        
+        return new ClassificationResult(
+            emailContent,
+            isSpam,
+            spamProbability,
+            wittyResponse
+        );
+    }
+    
+    private ClassificationResult failedResult(String emailContent, Exception e) {
+        return new ClassificationResult(
+            emailContent,
+            false,
+            0.0,
+            "Classification failed: " + e.getMessage()
+        );
+    }
+    
+    private static Instances newDataset(int capacity) {
+        // Create attributes (message content and class)
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("content", (ArrayList<String>) null));
+        
+        ArrayList<String> classValues = new ArrayList<>();
+        classValues.add("ham");
+        classValues.add("spam");
+        attributes.add(new Attribute("@@class@@", classValues));
+        
+        // Create dataset structure
+        Instances dataset = new Instances("SpamClassification", attributes, capacity);
+        dataset.setClassIndex(1);
+        return dataset;
     }
     
     private Instance createInstance(String text, String classValue, Instances dataset) {
@@ -166,6 +569,18 @@ public class SpamClassifier extends BaseAITask {
     
     @Override
     public void cleanup() {
+        if (initialized) {
+            flushPendingUpdates();
+        }
+        if (trainingPool != null) {
+            trainingPool.shutdown();
+        }
+        if (duplicateCache != null) {
+            logger.info("Duplicate cache stats: {}", duplicateCache);
+        }
+        if (cascade != null) {
+            logger.info("Cascade stats: {}", cascade);
+        }
         initialized = false;
         logger.info("SpamClassifier cleaned up");
     }
@@ -0,0 +1,240 @@
+package com.aitasks.models.spam;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Updateable multinomial Naive Bayes model used on the classification hot path.
+ * It is seeded from the word vectors produced by the trained
+ * {@code StringToWordVector} filter and reproduces the log-probabilities of
+ * Weka's {@code NaiveBayesMultinomial}, but scores a message straight from its
+ * token ids instead of going through {@code Instances} and {@code Filter}.
+ * <p>
+ * The model keeps its sufficient statistics (class and word counts) over a
+ * growable vocabulary, so new messages can be folded in at a cost proportional
+ * to their own length.
+ * <p>
+ * Once published to readers a model must not be mutated; writers {@link #copy()}
+ * it, apply their changes to the copy and publish that instead.
+ */
+final class SpamModel {
+    static final int HAM = 0;
+    static final int SPAM = 1;
+    static final int NUM_CLASSES = 2;
+
+    private final HashedFeatureVectorizer vectorizer;
+    private final double[] classCounts = new double[NUM_CLASSES];
+    private final double[] classWordTotals = new double[NUM_CLASSES];
+    // Word counts and log(count + 1), laid out as [featureId * NUM_CLASSES + classIndex]
+    private double[] wordCounts;
+    private double[] logWordCounts;
+
+    private SpamModel(TokenDictionary dictionary) {
+        this.vectorizer = new HashedFeatureVectorizer(dictionary);
+        this.wordCounts = new double[Math.max(16, dictionary.size()) * NUM_CLASSES];
+        this.logWordCounts = new double[wordCounts.length];
+    }
+
+    /**
+     * Compiles the model from the filtered training data, whose non-class
+     * attributes are the filter's dictionary words.
+     */
+    static SpamModel compile(Instances filteredData) {
+        int classIndex = filteredData.classIndex();
+        int numAttributes = filteredData.numAttributes();
+
+        TokenDictionary dictionary = new TokenDictionary(numAttributes);
+        int[] featureOfAttribute = new int[numAttributes];
+        for (int a = 0; a < numAttributes; a++) {
+            featureOfAttribute[a] = a == classIndex ? -1
+                : dictionary.add(filteredData.attribute(a).name());
+        }
+
+        SpamModel model = new SpamModel(dictionary);
+        for (int i = 0; i < filteredData.numInstances(); i++) {
+            Instance instance = filteredData.instance(i);
+            int c = (int) instance.classValue();
+            double weight = instance.weight();
+            model.classCounts[c] += weight;
+            for (int v = 0; v < instance.numValues(); v++) {
+                int feature = featureOfAttribute[instance.index(v)];
+                if (feature >= 0) {
+                    model.addWord(feature, c, instance.valueSparse(v) * weight);
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Creates a model from merged shard counts; see {@link ParallelSpamTrainer}.
+     */
+    static SpamModel fromCounts(TokenDictionary dictionary, int[] classCounts, int[] wordCounts) {
+        double[] classes = new double[NUM_CLASSES];
+        for (int c = 0; c < NUM_CLASSES; c++) {
+            classes[c] = classCounts[c];
+        }
+        double[] words = new double[dictionary.size() * NUM_CLASSES];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = wordCounts[i];
+        }
+        return fromCounts(dictionary, classes, words);
+    }
+
+    /**
+     * Creates a model from raw counts laid out as [featureId * NUM_CLASSES + classIndex].
+     */
+    static SpamModel fromCounts(TokenDictionary dictionary, double[] classCounts, double[] wordCounts) {
+        SpamModel model = new SpamModel(dictionary);
+        for (int c = 0; c < NUM_CLASSES; c++) {
+            model.classCounts[c] = classCounts[c];
+        }
+        for (int f = 0; f < dictionary.size(); f++) {
+            for (int c = 0; c < NUM_CLASSES; c++) {
+                double count = wordCounts[f * NUM_CLASSES + c];
+                if (count > 0) {
+                    model.addWord(f, c, count);
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Returns an independent copy that can be updated while readers keep scoring this one.
+     */
+    SpamModel copy() {
+        SpamModel copy = new SpamModel(dictionary().copy());
+        System.arraycopy(classCounts, 0, copy.classCounts, 0, NUM_CLASSES);
+        System.arraycopy(classWordTotals, 0, copy.classWordTotals, 0, NUM_CLASSES);
+        copy.wordCounts = wordCounts.clone();
+        copy.logWordCounts = logWordCounts.clone();
+        return copy;
+    }
+
+    static int classIndexOf(EmailType type) {
+        return type == EmailType.SPAM ? SPAM : HAM;
+    }
+
+    int vocabularySize() {
+        return vectorizer.getDictionary().size();
+    }
+
+    /**
+     * Approximate heap footprint in bytes of the dictionary and count tables.
+     */
+    long estimatedBytes() {
+        return dictionary().estimatedBytes() + 8L * (wordCounts.length + logWordCounts.length)
+            + 16L * NUM_CLASSES;
+    }
+
+    TokenDictionary dictionary() {
+        return vectorizer.getDictionary();
+    }
+
+    double classCount(int classIndex) {
+        return classCounts[classIndex];
+    }
+
+    double wordCount(int feature, int classIndex) {
+        return wordCounts[feature * NUM_CLASSES + classIndex];
+    }
+
+    /**
+     * Folds one labelled message into the counts. Unknown tokens extend the vocabulary.
+     */
+    void add(String text, int classIndex) {
+        HashedFeatureVectorizer.FeatureBuffer features = vectorizer.vectorizeAndGrow(text);
+        ensureCapacity(vocabularySize());
+        classCounts[classIndex]++;
+        for (int i = 0; i < features.size(); i++) {
+            addWord(features.feature(i), classIndex, 1.0);
+        }
+    }
+
+    /**
+     * Returns P(spam | text). Uses only the calling thread's reusable buffers.
+     */
+    double spamProbability(String text) {
+        HashedFeatureVectorizer.FeatureBuffer features = vectorizer.vectorize(text);
+        double ham = 0.0;
+        double spam = 0.0;
+        for (int i = 0; i < features.size(); i++) {
+            int base = features.feature(i) * NUM_CLASSES;
+            ham += logWordCounts[base + HAM];
+            spam += logWordCounts[base + SPAM];
+        }
+
+        // Laplace smoothing, as in NaiveBayesMultinomial
+        int vocabularySize = vocabularySize();
+        int n = features.size();
+        ham += logPrior(HAM) - n * Math.log(classWordTotals[HAM] + vocabularySize);
+        spam += logPrior(SPAM) - n * Math.log(classWordTotals[SPAM] + vocabularySize);
+        return 1.0 / (1.0 + Math.exp(ham - spam));
+    }
+
+    /**
+     * Scores a batch of messages: all of them are vectorized into one flat block
+     * of feature ids first, then scored in a single pass that shares the
+     * per-class priors and normalisers.
+     */
+    void spamProbabilities(List<String> texts, double[] probabilities) {
+        int count = texts.size();
+        int[] offsets = new int[count + 1];
+        int[] block = new int[Math.max(16, count * 8)];
+        int size = 0;
+        for (int m = 0; m < count; m++) {
+            HashedFeatureVectorizer.FeatureBuffer features = vectorizer.vectorize(texts.get(m));
+            if (size + features.size() > block.length) {
+                block = Arrays.copyOf(block, Math.max(size + features.size(), block.length << 1));
+            }
+            for (int i = 0; i < features.size(); i++) {
+                block[size++] = features.feature(i);
+            }
+            offsets[m + 1] = size;
+        }
+
+        int vocabularySize = vocabularySize();
+        double hamNorm = Math.log(classWordTotals[HAM] + vocabularySize);
+        double spamNorm = Math.log(classWordTotals[SPAM] + vocabularySize);
+        double hamPrior = logPrior(HAM);
+        double spamPrior = logPrior(SPAM);
+        for (int m = 0; m < count; m++) {
+            double ham = 0.0;
+            double spam = 0.0;
+            for (int i = offsets[m]; i < offsets[m + 1]; i++) {
+                int base = block[i] * NUM_CLASSES;
+                ham += logWordCounts[base + HAM];
+                spam += logWordCounts[base + SPAM];
+            }
+            int n = offsets[m + 1] - offsets[m];
+            ham += hamPrior - n * hamNorm;
+            spam += spamPrior - n * spamNorm;
+            probabilities[m] = 1.0 / (1.0 + Math.exp(ham - spam));
+        }
+    }
+
+    private double logPrior(int classIndex) {
+        return Math.log((classCounts[classIndex] + 1)
+            / (classCounts[HAM] + classCounts[SPAM] + NUM_CLASSES));
+    }
+
+    private void addWord(int feature, int classIndex, double count) {
+        int i = feature * NUM_CLASSES + classIndex;
+        wordCounts[i] += count;
+        logWordCounts[i] = Math.log(wordCounts[i] + 1);
+        classWordTotals[classIndex] += count;
+    }
+
+    private void ensureCapacity(int vocabularySize) {
+        int required = vocabularySize * NUM_CLASSES;
+        if (required > wordCounts.length) {
+            int capacity = Math.max(required, wordCounts.length << 1);
+            wordCounts = Arrays.copyOf(wordCounts, capacity);
+            logWordCounts = Arrays.copyOf(logWordCounts, capacity);
+        }
+    }
+}
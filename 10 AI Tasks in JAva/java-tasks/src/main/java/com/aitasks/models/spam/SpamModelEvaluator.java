@@ -0,0 +1,218 @@
+package com.aitasks.models.spam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * k-fold cross-validation harness for tuning the spam classifier's
+ * {@code spam.words.to.keep} and {@code spam.threshold} settings on both accuracy
+ * and cost. Folds are trained and scored in parallel; each model is trained once
+ * per words-to-keep value and its scores are reused for every threshold.
+ * {@code SpamEvaluationBenchmark} runs it over a pair of mbox files.
+ */
+public class SpamModelEvaluator {
+    private final SpamClassifier classifier;
+    private final int folds;
+    private final ForkJoinPool pool;
+    private final long seed;
+
+    public SpamModelEvaluator(SpamClassifier classifier, int folds, ForkJoinPool pool, long seed) {
+        if (folds < 2) {
+            throw new IllegalArgumentException("Need at least 2 folds: " + folds);
+        }
+        this.classifier = classifier;
+        this.folds = folds;
+        this.pool = pool;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns one report per (words to keep, threshold) combination.
+     */
+    public List<Report> evaluate(List<EmailMessage> corpus, int[] wordsToKeepValues, double[] thresholds) {
+        List<EmailMessage> shuffled = new ArrayList<>(corpus);
+        Collections.shuffle(shuffled, new Random(seed));
+
+        List<Report> reports = new ArrayList<>();
+        for (int wordsToKeep : wordsToKeepValues) {
+            List<CompletableFuture<FoldResult>> running = new ArrayList<>();
+            for (int fold = 0; fold < folds; fold++) {
+                int testFold = fold;
+                running.add(CompletableFuture.supplyAsync(
+                    () -> runFold(shuffled, testFold, wordsToKeep), pool));
+            }
+            List<FoldResult> results = new ArrayList<>();
+            for (CompletableFuture<FoldResult> result : running) {
+                results.add(result.join());
+            }
+            for (double threshold : thresholds) {
+                reports.add(summarize(results, wordsToKeep, threshold));
+            }
+        }
+        return reports;
+    }
+
+    private FoldResult runFold(List<EmailMessage> corpus, int testFold, int wordsToKeep) {
+        List<EmailMessage> training = new ArrayList<>();
+        List<EmailMessage> test = new ArrayList<>();
+        for (int i = 0; i < corpus.size(); i++) {
+            (i % folds == testFold ? test : training).add(corpus.get(i));
+        }
+
+        try {
+            long start = System.nanoTime();
+            SpamModel model = classifier.buildModel(training, wordsToKeep);
+            long trainNanos = System.nanoTime() - start;
+
+            FoldResult result = new FoldResult(test.size(), trainNanos, model.estimatedBytes());
+            for (int i = 0; i < test.size(); i++) {
+                EmailMessage message = test.get(i);
+                long scoreStart = System.nanoTime();
+                result.probabilities[i] = model.spamProbability(message.getContent());
+                result.latencies[i] = System.nanoTime() - scoreStart;
+                result.spam[i] = message.getType() == EmailType.SPAM;
+            }
+            return result;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private Report summarize(List<FoldResult> results, int wordsToKeep, double threshold) {
+        long truePositives = 0;
+        long falsePositives = 0;
+        long falseNegatives = 0;
+        long trueNegatives = 0;
+        long trainNanos = 0;
+        long modelBytes = 0;
+        List<long[]> latencies = new ArrayList<>();
+        for (FoldResult result : results) {
+            for (int i = 0; i < result.probabilities.length; i++) {
+                boolean predicted = result.probabilities[i] > threshold;
+                if (predicted && result.spam[i]) {
+                    truePositives++;
+                } else if (predicted) {
+                    falsePositives++;
+                } else if (result.spam[i]) {
+                    falseNegatives++;
+                } else {
+                    trueNegatives++;
+                }
+            }
+            trainNanos += result.trainNanos;
+            modelBytes += result.modelBytes;
+            latencies.add(result.latencies);
+        }
+
+        long[] allLatencies = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Report(
+            wordsToKeep,
+            threshold,
+            truePositives,
+            falsePositives,
+            falseNegatives,
+            trueNegatives,
+            trainNanos / results.size() / 1e6,
+            percentile(allLatencies, 0.50),
+            percentile(allLatencies, 0.90),
+            percentile(allLatencies, 0.99),
+            modelBytes / results.size()
+        );
+    }
+
+    private static double ratio(long numerator, long denominator) {
+        return denominator == 0 ? 0.0 : (double) numerator / denominator;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.floor(p * sorted.length))];
+    }
+
+    private static final class FoldResult {
+        private final double[] probabilities;
+        private final boolean[] spam;
+        private final long[] latencies;
+        private final long trainNanos;
+        private final long modelBytes;
+
+        FoldResult(int size, long trainNanos, long modelBytes) {
+            this.probabilities = new double[size];
+            this.spam = new boolean[size];
+            this.latencies = new long[size];
+            this.trainNanos = trainNanos;
+            this.modelBytes = modelBytes;
+        }
+    }
+
+    /**
+     * Cross-validated quality and cost of one configuration.
+     */
+    public static class Report {
+        private final int wordsToKeep;
+        private final double threshold;
+        private final long truePositives;
+        private final long falsePositives;
+        private final long falseNegatives;
+        private final long trueNegatives;
+        private final double trainMillis;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long modelBytes;
+
+        public Report(int wordsToKeep, double threshold, long truePositives, long falsePositives,
+                      long falseNegatives, long trueNegatives, double trainMillis, long p50Nanos,
+                      long p90Nanos, long p99Nanos, long modelBytes) {
+            this.wordsToKeep = wordsToKeep;
+            this.threshold = threshold;
+            this.truePositives = truePositives;
+            this.falsePositives = falsePositives;
+            this.falseNegatives = falseNegatives;
+            this.trueNegatives = trueNegatives;
+            this.trainMillis = trainMillis;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.modelBytes = modelBytes;
+        }
+
+        // Getters
+        public int getWordsToKeep() { return wordsToKeep; }
+        public double getThreshold() { return threshold; }
+        public long getTruePositives() { return truePositives; }
+        public long getFalsePositives() { return falsePositives; }
+        public long getFalseNegatives() { return falseNegatives; }
+        public long getTrueNegatives() { return trueNegatives; }
+
+        /**
+         * Messages scored across all folds; each message is in exactly one test fold.
+         */
+        public long getMessages() {
+            return truePositives + falsePositives + falseNegatives + trueNegatives;
+        }
+
+        public double getPrecision() { return ratio(truePositives, truePositives + falsePositives); }
+        public double getRecall() { return ratio(truePositives, truePositives + falseNegatives); }
+        public double getAccuracy() { return ratio(truePositives + trueNegatives, getMessages()); }
+        public double getTrainMillis() { return trainMillis; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP90Nanos() { return p90Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+        public long getModelBytes() { return modelBytes; }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "wordsToKeep=%-6d threshold=%.2f messages=%d precision=%.3f recall=%.3f accuracy=%.3f "
+                    + "train=%.1f ms classify p50/p90/p99=%d/%d/%d ns model=%d KB",
+                wordsToKeep, threshold, getMessages(), getPrecision(), getRecall(), getAccuracy(), trainMillis,
+                p50Nanos, p90Nanos, p99Nanos, modelBytes / 1024);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.aitasks.models.spam;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact versioned binary snapshot of a {@link SpamModel}.
+ * <pre>
+ * int    magic ("SPAM")
+ * int    format version
+ * int    number of classes
+ * double class counts[numClasses]
+ * int    vocabulary size
+ * per token: short UTF-8 length, UTF-8 bytes (in feature id order)
+ * double word counts[vocabularySize * numClasses]
+ * </pre>
+ * Snapshots are read through a memory-mapped buffer, so loading costs one pass
+ * over the file instead of a retrain.
+ */
+final class SpamModelSnapshot {
+    private static final int MAGIC = 0x5350414D;
+    private static final int VERSION = 1;
+
+    private SpamModelSnapshot() {
+    }
+
+    static void write(SpamModel model, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            TokenDictionary dictionary = model.dictionary();
+            int vocabularySize = dictionary.size();
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(SpamModel.NUM_CLASSES);
+            for (int c = 0; c < SpamModel.NUM_CLASSES; c++) {
+                out.writeDouble(model.classCount(c));
+            }
+            out.writeInt(vocabularySize);
+            for (int f = 0; f < vocabularySize; f++) {
+                byte[] token = dictionary.token(f).getBytes(StandardCharsets.UTF_8);
+                if (token.length > 0xFFFF) {
+                    throw new IOException("Token too long for snapshot: " + token.length + " bytes");
+                }
+                out.writeShort(token.length);
+                out.write(token);
+            }
+            for (int f = 0; f < vocabularySize; f++) {
+                for (int c = 0; c < SpamModel.NUM_CLASSES; c++) {
+                    out.writeDouble(model.wordCount(f, c));
+                }
+            }
+            out.flush();
+            // Make the data durable before the rename can make it visible
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        // Replace atomically so a crash never leaves a half-written snapshot behind
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write}. A file that is not a snapshot,
+     * or is truncated or otherwise inconsistent, is reported as an {@link IOException}.
+     */
+    static SpamModel read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            require(buffer, 3 * Integer.BYTES, path);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a spam model snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported spam model snapshot version " + version + ": " + path);
+            }
+            int numClasses = buffer.getInt();
+            if (numClasses != SpamModel.NUM_CLASSES) {
+                throw new IOException("Snapshot has " + numClasses + " classes, expected "
+                    + SpamModel.NUM_CLASSES + ": " + path);
+            }
+
+            require(buffer, (long) numClasses * Double.BYTES + Integer.BYTES, path);
+            double[] classCounts = new double[numClasses];
+            for (int c = 0; c < numClasses; c++) {
+                classCounts[c] = buffer.getDouble();
+            }
+            int vocabularySize = buffer.getInt();
+            if (vocabularySize < 0) {
+                throw new IOException("Corrupt spam model snapshot, vocabulary size " + vocabularySize + ": " + path);
+            }
+            // Every token takes at least its length and its counts
+            require(buffer, (long) vocabularySize * (Short.BYTES + numClasses * Double.BYTES), path);
+            TokenDictionary dictionary = new TokenDictionary(vocabularySize);
+            byte[] token = new byte[256];
+            for (int f = 0; f < vocabularySize; f++) {
+                require(buffer, Short.BYTES, path);
+                int length = Short.toUnsignedInt(buffer.getShort());
+                require(buffer, length, path);
+                if (length > token.length) {
+                    token = new byte[length];
+                }
+                buffer.get(token, 0, length);
+                if (dictionary.add(new String(token, 0, length, StandardCharsets.UTF_8)) != f) {
+                    throw new IOException("Corrupt spam model snapshot, duplicate token at " + f + ": " + path);
+                }
+            }
+            require(buffer, (long) vocabularySize * numClasses * Double.BYTES, path);
+            double[] wordCounts = new double[vocabularySize * numClasses];
+            ByteBuffer counts = buffer.slice();
+            counts.asDoubleBuffer().get(wordCounts);
+            return SpamModel.fromCounts(dictionary, classCounts, wordCounts);
+        }
+    }
+
+    private static void require(ByteBuffer buffer, long bytes, Path path) throws IOException {
+        if (bytes > buffer.remaining()) {
+            throw new IOException("Truncated spam model snapshot: " + path);
+        }
+    }
+}
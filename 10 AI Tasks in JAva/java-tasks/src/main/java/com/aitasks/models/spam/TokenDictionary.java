@@ -0,0 +1,145 @@
+package com.aitasks.models.spam;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing token table mapping lower-cased words to dense feature ids.
+ * Lookups work on a char range so the scoring path never has to build a String.
+ */
+final class TokenDictionary {
+    private static final int EMPTY = 0;
+
+    private char[][] tokens;
+    private int[] slots; // feature id + 1, 0 marks an empty slot
+    private int mask;
+    private int size;
+
+    TokenDictionary(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.tokens = new char[Math.max(16, expectedSize)][];
+    }
+
+    /**
+     * Returns an independent copy that can grow without affecting this dictionary.
+     */
+    TokenDictionary copy() {
+        TokenDictionary copy = new TokenDictionary(0);
+        copy.tokens = Arrays.copyOf(tokens, tokens.length);
+        copy.slots = slots.clone();
+        copy.mask = mask;
+        copy.size = size;
+        return copy;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap footprint in bytes (arrays plus token character data).
+     */
+    long estimatedBytes() {
+        long bytes = 16L + 4L * slots.length + 8L * tokens.length;
+        for (int id = 0; id < size; id++) {
+            bytes += 16L + 2L * tokens[id].length;
+        }
+        return bytes;
+    }
+
+    String token(int id) {
+        return new String(tokens[id]);
+    }
+
+    /**
+     * Returns the feature id of the token in {@code buffer[0, length)}, or -1 if unknown.
+     */
+    int get(char[] buffer, int length) {
+        int slot = hash(buffer, length) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (matches(tokens[entry - 1], buffer, length)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds the token if it is not already present and returns its feature id.
+     */
+    int add(String token) {
+        char[] chars = token.toCharArray();
+        int id = get(chars, chars.length);
+        return id >= 0 ? id : append(chars);
+    }
+
+    /**
+     * Adds the token in {@code buffer[0, length)} if it is not already present and
+     * returns its feature id. Only copies the characters when the token is new.
+     */
+    int add(char[] buffer, int length) {
+        int id = get(buffer, length);
+        return id >= 0 ? id : append(Arrays.copyOf(buffer, length));
+    }
+
+    private int append(char[] chars) {
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length << 1);
+        }
+        if (size == tokens.length) {
+            tokens = Arrays.copyOf(tokens, size << 1);
+        }
+        int id = size++;
+        tokens[id] = chars;
+        insert(id);
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            insert(id);
+        }
+    }
+
+    private void insert(int id) {
+        char[] token = tokens[id];
+        int slot = hash(token, token.length) & mask;
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    private static boolean matches(char[] token, char[] buffer, int length) {
+        if (token.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (token[i] != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(char[] buffer, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + buffer[i];
+        }
+        // Murmur3 finalizer so short tokens spread across the table
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
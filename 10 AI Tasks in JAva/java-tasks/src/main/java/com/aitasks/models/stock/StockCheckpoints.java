@@ -0,0 +1,147 @@
+package com.aitasks.models.stock;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+
+/**
+ * Versioned model checkpoints in one directory, as {@code <name>-v<version>.zip}.
+ * Each checkpoint is a DL4J model zip with the updater state, so training can
+ * resume, plus the feature normalizer ranges the network was trained with.
+ * Saving writes a new version next to a temporary file and moves it into place
+ * atomically, then prunes all but the newest {@code keep} versions. Loading
+ * takes the newest readable version, reporting and skipping any newer one that
+ * is corrupt or of an unknown format, and leaves out the updater state, which
+ * serving does not need.
+ */
+final class StockCheckpoints {
+    private static final String NORMALIZER_ENTRY = "normalizer";
+    private static final String FORMAT_ENTRY = "checkpointFormat";
+    private static final Integer FORMAT = 1;
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9._^=-]+");
+
+    private final Path directory;
+    private final int keep;
+    private final BiConsumer<Path, Exception> unreadable;
+
+    /**
+     * @param unreadable told about each checkpoint file that {@link #load} skips
+     */
+    StockCheckpoints(Path directory, int keep, BiConsumer<Path, Exception> unreadable) {
+        this.directory = directory;
+        this.keep = keep;
+        this.unreadable = unreadable;
+    }
+
+    /**
+     * Saves the next version of {@code name} and returns its version number.
+     */
+    int save(String name, MultiLayerNetwork network, StockFeatures features) throws IOException {
+        checkName(name);
+        Files.createDirectories(directory);
+        int version = versions(name).stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+        Path target = directory.resolve(name + "-v" + version + ".zip");
+        Path temp = Files.createTempFile(directory, name, ".tmp");
+        try {
+            ModelSerializer.writeModel(network, temp.toFile(), true);
+            ModelSerializer.addObjectToFile(temp.toFile(), NORMALIZER_ENTRY, features.getStats());
+            ModelSerializer.addObjectToFile(temp.toFile(), FORMAT_ENTRY, FORMAT);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                // Make the data durable before the rename can make it visible
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        prune(name);
+        return version;
+    }
+
+    /**
+     * Newest readable checkpoint of {@code name}, or null if there is none.
+     */
+    Checkpoint load(String name) throws IOException {
+        checkName(name);
+        List<Integer> versions = versions(name);
+        versions.sort(Collections.reverseOrder());
+        for (int version : versions) {
+            Path file = directory.resolve(name + "-v" + version + ".zip");
+            try {
+                return load(file, version);
+            } catch (IOException | RuntimeException e) {
+                // DL4J reports a damaged zip or a missing entry as a RuntimeException
+                unreadable.accept(file, e);
+            }
+        }
+        return null;
+    }
+
+    private static Checkpoint load(Path file, int version) throws IOException {
+        Integer format = ModelSerializer.getObjectFromFile(file.toFile(), FORMAT_ENTRY);
+        if (!FORMAT.equals(format)) {
+            throw new IOException("Unsupported checkpoint format " + format + ": " + file);
+        }
+        MultiLayerNetwork network = ModelSerializer.restoreMultiLayerNetwork(file.toFile(), false);
+        double[] stats = ModelSerializer.getObjectFromFile(file.toFile(), NORMALIZER_ENTRY);
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        features.restore(stats);
+        return new Checkpoint(network, features, version);
+    }
+
+    private List<Integer> versions(String name) throws IOException {
+        List<Integer> versions = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return versions;
+        }
+        Pattern file = Pattern.compile(Pattern.quote(name) + "-v(\\d+)\\.zip");
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + "-v*.zip")) {
+            for (Path path : files) {
+                Matcher matcher = file.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    versions.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        return versions;
+    }
+
+    private void prune(String name) throws IOException {
+        List<Integer> versions = versions(name);
+        Collections.sort(versions);
+        for (int i = 0; i < versions.size() - keep; i++) {
+            Files.deleteIfExists(directory.resolve(name + "-v" + versions.get(i) + ".zip"));
+        }
+    }
+
+    private static void checkName(String name) {
+        if (!VALID_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid checkpoint name: " + name);
+        }
+    }
+
+    static final class Checkpoint {
+        final MultiLayerNetwork network;
+        final StockFeatures features;
+        final int version;
+
+        Checkpoint(MultiLayerNetwork network, StockFeatures features, int version) {
+            this.network = network;
+            this.features = features;
+            this.version = version;
+        }
+    }
+}
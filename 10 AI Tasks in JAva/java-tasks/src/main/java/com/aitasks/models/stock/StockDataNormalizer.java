@@ -2,15 +2,46 @@ package com.aitasks.models.stock;
 
 public class StockDataNormalizer {
     private double min = Double.MAX_VALUE;
-    private double max = Double.MIN_VALUE;
+    private double max = -Double.MAX_VALUE;
     
     public double normalize(double value) {
         updateMinMax(value);
-        return (value - min) / (max - min);
+        return scale(value);
+    }
+    
+    /**
+     * Widens the range to include {@code value} without scaling it.
+     */
+    public void observe(double value) {
+        updateMinMax(value);
+    }
+    
+    /**
+     * Scales {@code value} by the range learned so far, leaving the range as it is.
+     */
+    public double scale(double value) {
+        return (value - min) / span();
     }
     
     public double denormalize(double normalizedValue) {
-        return normalizedValue * (max - min) + min;
+        return normalizedValue * span() + min;
+    }
+    
+    public boolean isFitted() { return min <= max; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+    
+    /**
+     * Restores a range learned earlier, e.g. from a model checkpoint.
+     */
+    public void restore(double min, double max) {
+        this.min = min;
+        this.max = max;
+    }
+    
+    // A single sample, or a flat series, has no range; scale by its magnitude instead of dividing 0 by 0
+    private double span() {
+        return max > min ? max - min : Math.max(Math.abs(min), 1.0);
     }
     
     private void updateMinMax(double value) {
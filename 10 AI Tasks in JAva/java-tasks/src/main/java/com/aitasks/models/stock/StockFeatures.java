@@ -0,0 +1,137 @@
+package com.aitasks.models.stock;
+
+import java.util.List;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Turns OHLCV bars into LSTM input of shape {@code [1, 5, T]}, one feature per
+ * row and one timestep per column as DL4J recurrent layers expect. Prices share
+ * one normalizer so open, high, low and close stay comparable; volume has its
+ * own. Ranges are learned up front with {@code fit}, or restored, and stay
+ * fixed while bars are written, so inputs are scaled the way the model was
+ * trained. Only fitting mutates; once fitted an instance can be shared.
+ */
+final class StockFeatures {
+    static final int COUNT = 5;
+
+    private final StockDataNormalizer prices;
+    private final StockDataNormalizer volumes = new StockDataNormalizer();
+
+    StockFeatures(StockDataNormalizer prices) {
+        this.prices = prices;
+    }
+
+    INDArray window(List<StockData> bars) {
+        int steps = bars.size();
+        double[] data = new double[COUNT * steps];
+        write(bars, data, 0, steps);
+        return Nd4j.create(data, new long[]{1, COUNT, steps}, 'c');
+    }
+
+    /**
+     * Window over a columnar series, read straight from its columns.
+     */
+    INDArray window(StockSeries series) {
+        int steps = series.size();
+        double[] data = new double[COUNT * steps];
+        write(series, 0, data, 0, steps);
+        return Nd4j.create(data, new long[]{1, COUNT, steps}, 'c');
+    }
+
+    /**
+     * Learns the price and volume range of a whole series up front, so every
+     * window of it is normalized the same way during training.
+     */
+    void fit(StockSeries series) {
+        for (int t = 0; t < series.size(); t++) {
+            prices.observe(series.low(t));
+            prices.observe(series.high(t));
+            prices.observe(series.open(t));
+            prices.observe(series.close(t));
+            volumes.observe(series.volume(t));
+        }
+    }
+    
+    void fit(List<StockData> bars) {
+        for (StockData bar : bars) {
+            prices.observe(bar.getLow());
+            prices.observe(bar.getHigh());
+            prices.observe(bar.getOpen());
+            prices.observe(bar.getClose());
+            volumes.observe(bar.getVolume());
+        }
+    }
+    
+    boolean isFitted() {
+        return prices.isFitted();
+    }
+    
+    /**
+     * An independent instance with the same ranges.
+     */
+    StockFeatures copy() {
+        StockFeatures copy = new StockFeatures(new StockDataNormalizer());
+        copy.restore(getStats());
+        return copy;
+    }
+
+    /**
+     * Writes bars {@code [from, from + steps)} of {@code series} into the
+     * C-ordered {@code [5, steps]} block at {@code offset}.
+     */
+    void write(StockSeries series, int from, double[] data, int offset, int steps) {
+        for (int t = 0; t < steps; t++) {
+            int bar = from + t;
+            data[offset + t] = prices.scale(series.open(bar));
+            data[offset + steps + t] = prices.scale(series.high(bar));
+            data[offset + 2 * steps + t] = prices.scale(series.low(bar));
+            data[offset + 3 * steps + t] = prices.scale(series.close(bar));
+            data[offset + 4 * steps + t] = volumes.scale(series.volume(bar));
+        }
+    }
+
+    INDArray step(StockData bar) {
+        double[] data = new double[COUNT];
+        write(bar, data, 0, 0, 1);
+        return Nd4j.create(data, new long[]{1, COUNT, 1}, 'c');
+    }
+
+    /**
+     * Writes {@code bars} as timesteps {@code [0, bars.size())} of the C-ordered
+     * {@code [5, steps]} block at {@code offset}; later timesteps are left as they are.
+     */
+    void write(List<StockData> bars, double[] data, int offset, int steps) {
+        for (int t = 0; t < bars.size(); t++) {
+            write(bars.get(t), data, offset, t, steps);
+        }
+    }
+
+    private void write(StockData bar, double[] data, int offset, int t, int steps) {
+        data[offset + t] = prices.scale(bar.getOpen());
+        data[offset + steps + t] = prices.scale(bar.getHigh());
+        data[offset + 2 * steps + t] = prices.scale(bar.getLow());
+        data[offset + 3 * steps + t] = prices.scale(bar.getClose());
+        data[offset + 4 * steps + t] = volumes.scale(bar.getVolume());
+    }
+
+    /**
+     * Learned ranges as {price min, price max, volume min, volume max}, for checkpoints.
+     */
+    double[] getStats() {
+        return new double[]{prices.getMin(), prices.getMax(), volumes.getMin(), volumes.getMax()};
+    }
+
+    void restore(double[] stats) {
+        prices.restore(stats[0], stats[1]);
+        volumes.restore(stats[2], stats[3]);
+    }
+
+    double normalizePrice(double price) {
+        return prices.scale(price);
+    }
+
+    double denormalizePrice(double normalized) {
+        return prices.denormalize(normalized);
+    }
+}
@@ -1,22 +1,62 @@
 package com.aitasks.models.stock;
 
 import com.aitasks.core.BaseAITask;
+import org.deeplearning4j.datasets.iterator.AsyncDataSetIterator;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.LSTM;
 import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.parallelism.ParallelWrapper;
+import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+/**
+ * Next-day price predictions from an LSTM, shared across tickers or trained per
+ * ticker, with streaming sessions for bar-by-bar feeds.
+ * <p>
+ * {@link #initialize()} only reads: it loads the newest shared checkpoint from
+ * {@code stock.checkpoint.dir}, relative to the working directory by default.
+ * Training and {@link #saveCheckpoint()} write new checkpoint versions there.
+ */
 public class StockMarketFortuneTeller extends BaseAITask {
-    private MultiLayerNetwork model;
+    // LSTM layers come first in the network; their state is what a session carries
+    private static final int RECURRENT_LAYERS = 2;
+    private static final String SHARED_CHECKPOINT = "shared";
+    
+    // Replaced as a whole by training and loading, so a network is never paired
+    // with another network's ranges
+    private volatile SharedModel shared;
     private final Random random = new Random();
-    private final StockDataNormalizer normalizer;
+    private final Map<String, StockPredictionSession> sessions = new ConcurrentHashMap<>();
+    private int batchSize;
+    private double learningRate;
+    private StockCheckpoints checkpoints;
+    private StockModelRegistry registry;
+    private int trainWindow;
+    private int trainStride;
+    private int trainBatchSize;
+    private int trainEpochs;
+    private int trainWorkers;
+    private int trainPrefetch;
+    private int trainAveragingFrequency;
     
     private final String[] downTrendMessages = {
         "📉 Better luck tomorrow! Maybe try investing in chocolate? Always goes up in my heart!",
@@ -36,7 +76,6 @@ public class StockMarketFortuneTeller extends BaseAITask {
     
     public StockMarketFortuneTeller() {
         super();
-        this.normalizer = new StockDataNormalizer();
     }
     
     @Override
@@ -44,28 +83,30 @@ public class StockMarketFortuneTeller extends BaseAITask {
         logger.info("Initializing StockMarketFortuneTeller...");
         try {
             // Configure LSTM network
-            int inputSize = 5;  // OHLCV data
-            int lstmLayer1Size = 50;
-            int lstmLayer2Size = 25;
+            learningRate = Double.parseDouble(config.getProperty("stock.train.learning.rate", "0.001"));
+            shared = new SharedModel(newNetwork(), new StockFeatures(new StockDataNormalizer()));
             
-            model = new MultiLayerNetwork(new NeuralNetConfiguration.Builder()
-                .seed(123)
-                .list()
-                .layer(new LSTM.Builder()
-                    .nIn(inputSize)
-                    .nOut(lstmLayer1Size)
-                    .build())
-                .layer(new LSTM.Builder()
-                    .nIn(lstmLayer1Size)
-                    .nOut(lstmLayer2Size)
-                    .build())
-                .layer(new RnnOutputLayer.Builder()
-                    .nIn(lstmLayer2Size)
-                    .nOut(1)
-                    .build())
-                .build());
+            // Series per forward pass in predictBatch
+            batchSize = Integer.parseInt(config.getProperty("stock.batch.size", "512"));
             
-            model.init();
+            // Training pipeline: minibatched sliding windows, prefetched, data-parallel across workers
+            int processors = Runtime.getRuntime().availableProcessors();
+            trainWindow = Integer.parseInt(config.getProperty("stock.train.window", "60"));
+            trainStride = Integer.parseInt(config.getProperty("stock.train.stride", "1"));
+            trainBatchSize = Integer.parseInt(config.getProperty("stock.train.batch.size", "64"));
+            trainEpochs = Integer.parseInt(config.getProperty("stock.train.epochs", "10"));
+            trainWorkers = Integer.parseInt(config.getProperty("stock.train.workers", String.valueOf(processors)));
+            trainPrefetch = Integer.parseInt(config.getProperty("stock.train.prefetch", "4"));
+            trainAveragingFrequency = Integer.parseInt(config.getProperty("stock.train.averaging.frequency", "5"));
+            
+            // Versioned checkpoints of the shared model and of per-ticker models
+            checkpoints = new StockCheckpoints(
+                Paths.get(config.getProperty("stock.checkpoint.dir", "models/stock")),
+                Integer.parseInt(config.getProperty("stock.checkpoint.keep", "3")),
+                (file, e) -> logger.warn("Skipping unreadable checkpoint {}", file, e));
+            registry = new StockModelRegistry(checkpoints,
+                Long.parseLong(config.getProperty("stock.registry.max.mb", "256")) << 20,
+                Long.parseLong(config.getProperty("stock.registry.missing.recheck.seconds", "60")) * 1000);
             
             // Load pre-trained weights if available
             loadPretrainedModel();
@@ -78,54 +119,326 @@ public class StockMarketFortuneTeller extends BaseAITask {
         }
     }
     
+    private MultiLayerNetwork newNetwork() {
+        int inputSize = 5;  // OHLCV data
+        int lstmLayer1Size = 50;
+        int lstmLayer2Size = 25;
+        
+        // Regression head: one linear output trained on squared error
+        MultiLayerNetwork network = new MultiLayerNetwork(new NeuralNetConfiguration.Builder()
+            .seed(123)
+            .weightInit(WeightInit.XAVIER)
+            .updater(new Adam(learningRate))
+            .list()
+            .layer(new LSTM.Builder()
+                .nIn(inputSize)
+                .nOut(lstmLayer1Size)
+                .activation(Activation.TANH)
+                .build())
+            .layer(new LSTM.Builder()
+                .nIn(lstmLayer1Size)
+                .nOut(lstmLayer2Size)
+                .activation(Activation.TANH)
+                .build())
+            .layer(new RnnOutputLayer.Builder(LossFunctions.LossFunction.MSE)
+                .activation(Activation.IDENTITY)
+                .nIn(lstmLayer2Size)
+                .nOut(1)
+                .build())
+            .build());
+        network.init();
+        return network;
+    }
+    
     public PredictionResult predictNextDay(List<StockData> historicalData) {
         checkInitialized();
         try {
             // Prepare data
-            INDArray input = prepareInputData(historicalData);
+            SharedModel current = shared;
+            StockFeatures scaling = current.featuresFor(historicalData);
+            INDArray input = scaling.window(historicalData);
             
-            // Make prediction
-            INDArray prediction = model.output(input);
-            double predictedPrice = normalizer.denormalize(prediction.getDouble(0));
+            // Make prediction from the output at the last timestep
+            INDArray prediction = current.output(input);
+            double predictedPrice = scaling.denormalizePrice(prediction.getDouble(0, 0, historicalData.size() - 1));
             double lastPrice = historicalData.get(historicalData.size() - 1).getClose();
             
-            // Calculate trend
-            boolean isUptrend = predictedPrice > lastPrice;
-            double changePercent = ((predictedPrice - lastPrice) / lastPrice) * 100;
-            
-            // Generate fortune message
-            String message = generateFortuneMessage(isUptrend, changePercent);
-            
-            return new PredictionResult(
-                lastPrice,
-                predictedPrice,
-                changePercent,
-                isUptrend,
-                message
-            );
+            return toPrediction(lastPrice, predictedPrice);
             
         } catch (Exception e) {
             logger.error("Prediction failed", e);
-            return new PredictionResult(
-                0.0,
-                0.0,
-                0.0,
-                false,
-                "Failed to predict future: Crystal ball needs debugging! 🔮"
-            );
+            return failedPrediction();
+        }
+    }
+    
+    /**
+     * Predicts with the model trained for {@code ticker}, loaded from its
+     * checkpoint on first use, falling back to the shared model for tickers
+     * without one.
+     */
+    public PredictionResult predictNextDay(String ticker, List<StockData> historicalData) {
+        checkInitialized();
+        StockModelRegistry.TickerModel tickerModel;
+        try {
+            tickerModel = registry.get(ticker);
+        } catch (Exception e) {
+            logger.warn("Could not load the model of {}, using the shared model", ticker, e);
+            tickerModel = null;
+        }
+        if (tickerModel == null) {
+            return predictNextDay(historicalData);
+        }
+        try {
+            double predictedPrice;
+            synchronized (tickerModel) {
+                INDArray prediction = tickerModel.network.output(tickerModel.features.window(historicalData));
+                predictedPrice = tickerModel.features.denormalizePrice(
+                    prediction.getDouble(0, 0, historicalData.size() - 1));
+            }
+            return toPrediction(historicalData.get(historicalData.size() - 1).getClose(), predictedPrice);
+        } catch (Exception e) {
+            logger.error("Prediction for {} failed", ticker, e);
+            return failedPrediction();
         }
     }
     
-    private INDArray prepareInputData(List<StockData> data) {
-        // Normalize and prepare data for LSTM
-        List<Double> normalizedData = new ArrayList<>();
-        for (StockData point : data) {
-            normalizedData.add(normalizer.normalize(point.getClose()));
+    /**
+     * Predicts from a columnar series, e.g. a zero-copy {@link StockSeries#tail}
+     * of a memory-mapped {@link StockSeriesStore}, without building StockData objects.
+     */
+    public PredictionResult predictNextDay(StockSeries series) {
+        checkInitialized();
+        try {
+            SharedModel current = shared;
+            StockFeatures scaling = current.featuresFor(series);
+            INDArray prediction = current.output(scaling.window(series));
+            double predictedPrice = scaling.denormalizePrice(prediction.getDouble(0, 0, series.size() - 1));
+            return toPrediction(series.lastClose(), predictedPrice);
+        } catch (Exception e) {
+            logger.error("Prediction for {} failed", series.getTicker(), e);
+            return failedPrediction();
         }
+    }
+    
+    /**
+     * Predicts the next close of many tickers with one forward pass per
+     * {@code stock.batch.size} series. Series of unequal length are packed
+     * left-aligned into a {@code [N, 5, T]} tensor with a {@code [N, T]}
+     * features mask, so padding never reaches a series' last real timestep.
+     * Series are ordered by length before packing to keep padding small. Results
+     * keep the order of {@code histories}.
+     */
+    public Map<String, PredictionResult> predictBatch(Map<String, List<StockData>> histories) {
+        checkInitialized();
+        List<Map.Entry<String, List<StockData>>> series = new ArrayList<>(histories.size());
+        for (Map.Entry<String, List<StockData>> entry : histories.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                series.add(entry);
+            }
+        }
+        series.sort(Comparator.comparingInt(entry -> entry.getValue().size()));
         
-        // Create input array
-        INDArray input = Nd4j.create(normalizedData);
-        return input.reshape(1, data.size(), 1);
+        Map<String, PredictionResult> predictions = new LinkedHashMap<>(histories.size() * 2);
+        for (String ticker : histories.keySet()) {
+            predictions.put(ticker, null);
+        }
+        for (int from = 0; from < series.size(); from += batchSize) {
+            List<Map.Entry<String, List<StockData>>> batch =
+                series.subList(from, Math.min(series.size(), from + batchSize));
+            try {
+                predictChunk(batch, predictions);
+            } catch (Exception e) {
+                logger.error("Batch prediction of {} tickers failed", batch.size(), e);
+            }
+        }
+        predictions.replaceAll((ticker, prediction) -> prediction != null ? prediction : failedPrediction());
+        return predictions;
+    }
+    
+    private void predictChunk(List<Map.Entry<String, List<StockData>>> batch,
+                              Map<String, PredictionResult> predictions) {
+        int n = batch.size();
+        int steps = batch.get(n - 1).getValue().size();
+        double[] data = new double[n * StockFeatures.COUNT * steps];
+        double[] mask = new double[n * steps];
+        StockFeatures[] rowFeatures = new StockFeatures[n];
+        SharedModel current = shared;
+        for (int row = 0; row < n; row++) {
+            List<StockData> bars = batch.get(row).getValue();
+            rowFeatures[row] = current.featuresFor(bars);
+            rowFeatures[row].write(bars, data, row * StockFeatures.COUNT * steps, steps);
+            Arrays.fill(mask, row * steps, row * steps + bars.size(), 1.0);
+        }
+        
+        INDArray input = Nd4j.create(data, new long[]{n, StockFeatures.COUNT, steps}, 'c');
+        INDArray featuresMask = Nd4j.create(mask, new long[]{n, steps}, 'c');
+        INDArray output;
+        synchronized (current.network) {
+            output = current.network.output(input, false, featuresMask, null);
+        }
+        
+        for (int row = 0; row < n; row++) {
+            List<StockData> bars = batch.get(row).getValue();
+            double predictedPrice = rowFeatures[row].denormalizePrice(output.getDouble(row, 0, bars.size() - 1));
+            predictions.put(batch.get(row).getKey(),
+                toPrediction(bars.get(bars.size() - 1).getClose(), predictedPrice));
+        }
+    }
+    
+    /**
+     * Trains on sliding windows of {@code series} for {@code stock.train.epochs}
+     * epochs. Every series is scaled with one set of ranges fitted over all of
+     * them, which the model is then served and saved with. Minibatches are prepared ahead of the network on a background
+     * thread; with more than one {@code stock.train.workers} they are trained
+     * data-parallel on model replicas whose parameters are averaged every
+     * {@code stock.train.averaging.frequency} minibatches. Training works on a
+     * copy of the model, so predictions keep being served meanwhile; the copy
+     * replaces the model when done and is saved as a new checkpoint. Streaming
+     * sessions are dropped afterwards, since their state came from the old weights.
+     */
+    public TrainingReport train(List<StockSeries> series) {
+        checkInitialized();
+        SharedModel current = shared;
+        MultiLayerNetwork next;
+        synchronized (current.network) {
+            next = current.network.clone();
+        }
+        StockFeatures scaling = new StockFeatures(new StockDataNormalizer());
+        series.forEach(scaling::fit);
+        TrainingReport report = fit(next, series, scaling);
+        shared = new SharedModel(next, scaling);
+        sessions.clear();
+        try {
+            logger.info("Saved shared model checkpoint v{}", saveCheckpoint());
+        } catch (IOException e) {
+            logger.error("Could not save the shared model checkpoint", e);
+        }
+        return report;
+    }
+    
+    /**
+     * Trains a model of its own for {@code ticker} on its series and saves it as
+     * the ticker's next checkpoint; {@link #predictNextDay(String, List)} uses it from then on.
+     */
+    public TrainingReport train(String ticker, StockSeries series) {
+        checkInitialized();
+        MultiLayerNetwork network = newNetwork();
+        StockFeatures tickerFeatures = new StockFeatures(new StockDataNormalizer());
+        tickerFeatures.fit(series);
+        TrainingReport report = fit(network, Collections.singletonList(series), tickerFeatures);
+        try {
+            logger.info("Saved {} model checkpoint v{}", ticker, registry.put(ticker, network, tickerFeatures).version);
+        } catch (IOException e) {
+            logger.error("Could not save the model of {}", ticker, e);
+        }
+        return report;
+    }
+    
+    /**
+     * Saves the shared model and the ranges it was trained with as a new
+     * checkpoint version, which the next {@link #initialize()} loads. Returns the version.
+     */
+    public int saveCheckpoint() throws IOException {
+        checkInitialized();
+        SharedModel current = shared;
+        synchronized (current.network) {
+            return checkpoints.save(SHARED_CHECKPOINT, current.network, current.features);
+        }
+    }
+    
+    public StockModelRegistry getRegistry() {
+        return registry;
+    }
+    
+    private TrainingReport fit(MultiLayerNetwork network, List<StockSeries> series, StockFeatures scaling) {
+        StockWindowIterator windows = new StockWindowIterator(series, scaling, trainWindow, trainStride,
+            trainBatchSize, 123);
+        logger.info("Training on {} windows of {} bars from {} series, {} workers",
+            windows.getWindowCount(), trainWindow, series.size(), trainWorkers);
+        TrainingReport report = new TrainingReport(trainWorkers);
+        if (trainWorkers > 1) {
+            // ParallelWrapper prefetches on its own
+            try (ParallelWrapper wrapper = new ParallelWrapper.Builder<>(network)
+                    .workers(trainWorkers)
+                    .prefetchBuffer(trainPrefetch)
+                    .averagingFrequency(trainAveragingFrequency)
+                    .reportScoreAfterAveraging(true)
+                    .build()) {
+                runEpochs(network, windows, windows, wrapper::fit, report);
+            }
+        } else {
+            AsyncDataSetIterator prefetching = new AsyncDataSetIterator(windows, trainPrefetch);
+            try {
+                runEpochs(network, prefetching, windows, network::fit, report);
+            } finally {
+                prefetching.shutdown();
+            }
+        }
+        report.setFinalScore(network.score());
+        logger.info("Training finished: {}", report);
+        return report;
+    }
+    
+    private void runEpochs(MultiLayerNetwork network, DataSetIterator source, StockWindowIterator windows,
+                           Consumer<DataSetIterator> fit, TrainingReport report) {
+        for (int epoch = 1; epoch <= trainEpochs; epoch++) {
+            source.reset();
+            long served = windows.getExamplesServed();
+            long start = System.nanoTime();
+            fit.accept(source);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            long examples = windows.getExamplesServed() - served;
+            report.addEpoch(millis, examples);
+            logger.info("Epoch {}/{}: {} ms, {} examples/s, score {}", epoch, trainEpochs, millis,
+                String.format("%.1f", millis == 0 ? 0.0 : examples * 1000.0 / millis), network.score());
+        }
+    }
+    
+    /**
+     * Streaming prediction session for {@code ticker}, created on first use.
+     * Feed it each new bar instead of calling {@link #predictNextDay} with the
+     * whole history.
+     */
+    public StockPredictionSession session(String ticker) {
+        checkInitialized();
+        SharedModel current = shared;
+        return sessions.computeIfAbsent(ticker,
+            t -> new StockPredictionSession(t, this, current.network, current.features.copy(), RECURRENT_LAYERS));
+    }
+    
+    public void closeSession(String ticker) {
+        sessions.remove(ticker);
+    }
+    
+    public int getSessionCount() {
+        return sessions.size();
+    }
+    
+    PredictionResult toPrediction(double lastPrice, double predictedPrice) {
+        // Calculate trend
+        boolean isUptrend = predictedPrice > lastPrice;
+        double changePercent = ((predictedPrice - lastPrice) / lastPrice) * 100;
+        
+        // Generate fortune message
+        String message = generateFortuneMessage(isUptrend, changePercent);
+        
+        return new PredictionResult(
+            lastPrice,
+            predictedPrice,
+            changePercent,
+            isUptrend,
+            message
+        );
+    }
+    
+    private PredictionResult failedPrediction() {
+        return new PredictionResult(
+            0.0,
+            0.0,
+            0.0,
+            false,
+            "Failed to predict future: Crystal ball needs debugging! 🔮"
+        );
     }
     
     private String generateFortuneMessage(boolean isUptrend, double changePercent) {
@@ -141,14 +454,30 @@ public class StockMarketFortuneTeller extends BaseAITask {
     }
     
     private void loadPretrainedModel() {
-        // Load pre-trained weights (simplified)
-        logger.info("Using default model weights");
+        StockCheckpoints.Checkpoint checkpoint;
+        try {
+            checkpoint = checkpoints.load(SHARED_CHECKPOINT);
+        } catch (IOException e) {
+            logger.warn("Could not list shared model checkpoints, using default model weights", e);
+            return;
+        }
+        if (checkpoint == null) {
+            logger.info("Using default model weights");
+            return;
+        }
+        shared = new SharedModel(checkpoint.network, checkpoint.features);
+        logger.info("Loaded shared model checkpoint v{}", checkpoint.version);
     }
     
     @Override
     public void cleanup() {
-        if (model != null) {
-            model.clear();
+        sessions.clear();
+        if (registry != null) {
+            logger.info("Stock model registry: {}", registry);
+            registry = null;
+        }
+        if (shared != null) {
+            shared.network.clear();
         }
         initialized = false;
         logger.info("StockMarketFortuneTeller cleaned up");
@@ -163,4 +492,47 @@ public class StockMarketFortuneTeller extends BaseAITask {
     public String getTaskDescription() {
         return "Predicts stock prices with a dash of humor and questionable financial advice";
     }
+    
+    /**
+     * The shared network with the ranges it was trained with, unfitted until it
+     * is trained or loaded. Predictions and sessions hold the network's lock
+     * while using it; the ranges are read-only.
+     */
+    private static final class SharedModel {
+        final MultiLayerNetwork network;
+        final StockFeatures features;
+        
+        SharedModel(MultiLayerNetwork network, StockFeatures features) {
+            this.network = network;
+            this.features = features;
+        }
+        
+        INDArray output(INDArray input) {
+            synchronized (network) {
+                return network.output(input);
+            }
+        }
+        
+        /**
+         * Scaling for {@code history}: the ranges the network was trained with,
+         * or, while it has none, the range of the whole history.
+         */
+        StockFeatures featuresFor(List<StockData> history) {
+            if (features.isFitted()) {
+                return features;
+            }
+            StockFeatures fitted = new StockFeatures(new StockDataNormalizer());
+            fitted.fit(history);
+            return fitted;
+        }
+        
+        StockFeatures featuresFor(StockSeries history) {
+            if (features.isFitted()) {
+                return features;
+            }
+            StockFeatures fitted = new StockFeatures(new StockDataNormalizer());
+            fitted.fit(history);
+            return fitted;
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.aitasks.models.stock;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+
+/**
+ * Per-ticker models backed by {@link StockCheckpoints}. A ticker's model is
+ * loaded from its newest checkpoint on first use and kept in memory until the
+ * least-recently-used models have to make room: the total, estimated from
+ * parameter counts, stays under a byte budget. Tickers without a checkpoint
+ * are remembered for a while, so asking again does not touch the disk until a
+ * checkpoint saved by another process could have appeared. Thread-safe;
+ * loading happens outside the lock, so a slow load never blocks lookups of
+ * models already in memory, and a load that finishes after a newer model was
+ * put never replaces it.
+ */
+public class StockModelRegistry {
+    private final StockCheckpoints checkpoints;
+    private final long maxBytes;
+    private final LinkedHashMap<String, TickerModel> models = new LinkedHashMap<>(64, 0.75f, true);
+    // Tickers found without a checkpoint, with the System.nanoTime() of the check
+    private final Map<String, Long> missing = new ConcurrentHashMap<>();
+    private final long missingRecheckNanos;
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param missingRecheckMillis how long a ticker found without a checkpoint
+     *                             is answered from memory before the disk is checked again
+     */
+    StockModelRegistry(StockCheckpoints checkpoints, long maxBytes, long missingRecheckMillis) {
+        this.checkpoints = checkpoints;
+        this.maxBytes = maxBytes;
+        this.missingRecheckNanos = TimeUnit.MILLISECONDS.toNanos(missingRecheckMillis);
+    }
+
+    /**
+     * The model of {@code ticker}, loading it if needed, or null if it has no checkpoint.
+     */
+    TickerModel get(String ticker) throws IOException {
+        synchronized (this) {
+            TickerModel model = models.get(ticker);
+            if (model != null) {
+                hits.increment();
+                return model;
+            }
+        }
+        Long checked = missing.get(ticker);
+        if (checked != null && System.nanoTime() - checked < missingRecheckNanos) {
+            return null;
+        }
+        StockCheckpoints.Checkpoint checkpoint = checkpoints.load(ticker);
+        if (checkpoint == null) {
+            missing.put(ticker, System.nanoTime());
+            return null;
+        }
+        missing.remove(ticker);
+        loads.increment();
+        return cache(ticker, new TickerModel(checkpoint.network, checkpoint.features, checkpoint.version));
+    }
+
+    /**
+     * Saves a newly trained model of {@code ticker} as its next checkpoint and serves it from now on.
+     */
+    TickerModel put(String ticker, MultiLayerNetwork network, StockFeatures features) throws IOException {
+        int version = checkpoints.save(ticker, network, features);
+        missing.remove(ticker);
+        return cache(ticker, new TickerModel(network, features, version));
+    }
+
+    /**
+     * Serves {@code model} for {@code ticker} unless a model of the same or a
+     * newer version is already cached, which is then returned instead.
+     */
+    synchronized TickerModel cache(String ticker, TickerModel model) {
+        TickerModel current = models.get(ticker);
+        if (current != null && current.version >= model.version) {
+            // A load that started before a concurrent put read an older checkpoint
+            return current;
+        }
+        TickerModel previous = models.put(ticker, model);
+        bytes += model.bytes - (previous == null ? 0 : previous.bytes);
+        // The model just cached is the most recent and always stays, even if it alone exceeds the budget
+        Iterator<TickerModel> eldest = models.values().iterator();
+        while (bytes > maxBytes && models.size() > 1) {
+            TickerModel evicted = eldest.next();
+            bytes -= evicted.bytes;
+            eldest.remove();
+            evictions.increment();
+        }
+        return model;
+    }
+
+    public synchronized int getLoadedModels() {
+        return models.size();
+    }
+
+    /**
+     * Estimated parameter memory of the loaded models.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StockModelRegistry[loaded=%d, memory=%d/%d MB, hits=%d, loads=%d, evictions=%d]",
+            getLoadedModels(), getBytes() >> 20, maxBytes >> 20, getHits(), getLoads(), getEvictions());
+    }
+
+    /**
+     * A ticker's network with the normalizer ranges it was trained with.
+     * Predictions must hold its lock, as the network is not thread-safe.
+     */
+    static final class TickerModel {
+        final MultiLayerNetwork network;
+        final StockFeatures features;
+        final int version;
+        final long bytes;
+
+        TickerModel(MultiLayerNetwork network, StockFeatures features, int version) {
+            this.network = network;
+            this.features = features;
+            this.version = version;
+            // Parameters are single-precision floats by default
+            this.bytes = network.numParams() * Float.BYTES;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.aitasks.models.stock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * Streaming predictions for one ticker. The session keeps the LSTM layers'
+ * recurrent state between bars and advances it one timestep per new bar with
+ * {@link MultiLayerNetwork#rnnTimeStep}, so each tick costs the same however
+ * long the history is. The network is shared by every session: its state is
+ * swapped in and out under the network's lock, which holds just one small
+ * state vector per LSTM layer, so thousands of tickers can share one model.
+ * Bars are scaled with the ranges the model was trained with; for a model
+ * without any, the session fixes its ranges from its first bars. Thread-safe.
+ */
+public class StockPredictionSession {
+    private final String ticker;
+    private final StockMarketFortuneTeller teller;
+    private final MultiLayerNetwork model;
+    private final int recurrentLayers;
+    private final StockFeatures features;
+
+    // Recurrent state per LSTM layer after the last bar; null before the first
+    private List<Map<String, INDArray>> state;
+    private double lastClose;
+    private long bars;
+
+    StockPredictionSession(String ticker, StockMarketFortuneTeller teller, MultiLayerNetwork model,
+                           StockFeatures features, int recurrentLayers) {
+        this.ticker = ticker;
+        this.teller = teller;
+        this.model = model;
+        this.features = features;
+        this.recurrentLayers = recurrentLayers;
+    }
+
+    /**
+     * Feeds past bars in one pass, e.g. when the session starts, without predicting.
+     */
+    public synchronized void warmUp(List<StockData> history) {
+        if (history.isEmpty()) {
+            return;
+        }
+        if (!features.isFitted()) {
+            features.fit(history);
+        }
+        advance(features.window(history));
+        lastClose = history.get(history.size() - 1).getClose();
+        bars += history.size();
+    }
+
+    /**
+     * Like {@link #warmUp(List)} over a columnar series, e.g. a mapped store's {@code tail}.
+     */
+    public synchronized void warmUp(StockSeries history) {
+        if (history.isEmpty()) {
+            return;
+        }
+        if (!features.isFitted()) {
+            features.fit(history);
+        }
+        advance(features.window(history));
+        lastClose = history.lastClose();
+        bars += history.size();
+    }
+
+    /**
+     * Advances the state by one bar and predicts the next close.
+     */
+    public synchronized PredictionResult update(StockData bar) {
+        if (!features.isFitted()) {
+            features.fit(Collections.singletonList(bar));
+        }
+        double output = advance(features.step(bar));
+        lastClose = bar.getClose();
+        bars++;
+        return teller.toPrediction(lastClose, features.denormalizePrice(output));
+    }
+
+    /**
+     * Forgets all bars seen so far.
+     */
+    public synchronized void reset() {
+        state = null;
+        lastClose = 0.0;
+        bars = 0;
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public synchronized long getBars() {
+        return bars;
+    }
+
+    public synchronized double getLastClose() {
+        return lastClose;
+    }
+
+    /**
+     * Runs {@code input} through the network from this session's state and
+     * returns the (normalized) output of its last timestep.
+     */
+    private double advance(INDArray input) {
+        synchronized (model) {
+            model.rnnClearPreviousState();
+            if (state != null) {
+                for (int layer = 0; layer < recurrentLayers; layer++) {
+                    model.rnnSetPreviousState(layer, state.get(layer));
+                }
+            }
+            INDArray output = model.rnnTimeStep(input);
+            List<Map<String, INDArray>> next = new ArrayList<>(recurrentLayers);
+            for (int layer = 0; layer < recurrentLayers; layer++) {
+                // Copied so the next session's step cannot overwrite them
+                Map<String, INDArray> layerState = new HashMap<>();
+                model.rnnGetPreviousState(layer).forEach((key, value) -> layerState.put(key, value.dup()));
+                next.add(layerState);
+            }
+            state = next;
+            return output.getDouble(0, 0, input.size(2) - 1);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.aitasks.models.stock;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One ticker's daily bars stored column by column: dates as epoch days and
+ * OHLCV as primitive columns. Columns are buffers, either wrapping heap arrays
+ * or slices of a memory-mapped {@link StockSeriesStore} file, so a series costs
+ * a few dozen bytes per bar on the heap or none at all when mapped.
+ * {@link #view} and {@link #tail} share the columns rather than copying them.
+ * Series are immutable and thread-safe.
+ */
+public class StockSeries {
+    private final String ticker;
+    private final IntBuffer dates;
+    private final DoubleBuffer open;
+    private final DoubleBuffer high;
+    private final DoubleBuffer low;
+    private final DoubleBuffer close;
+    private final LongBuffer volume;
+    private final int offset;
+    private final int size;
+
+    StockSeries(String ticker, IntBuffer dates, DoubleBuffer open, DoubleBuffer high,
+                DoubleBuffer low, DoubleBuffer close, LongBuffer volume, int offset, int size) {
+        this.ticker = ticker;
+        this.dates = dates;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Copies bars into heap columns; dates are ISO {@code yyyy-MM-dd} strings.
+     */
+    public static StockSeries of(String ticker, List<StockData> bars) {
+        int n = bars.size();
+        int[] dates = new int[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        long[] volume = new long[n];
+        for (int i = 0; i < n; i++) {
+            StockData bar = bars.get(i);
+            dates[i] = (int) LocalDate.parse(bar.getDate()).toEpochDay();
+            open[i] = bar.getOpen();
+            high[i] = bar.getHigh();
+            low[i] = bar.getLow();
+            close[i] = bar.getClose();
+            volume[i] = bar.getVolume();
+        }
+        return new StockSeries(ticker, IntBuffer.wrap(dates), DoubleBuffer.wrap(open), DoubleBuffer.wrap(high),
+            DoubleBuffer.wrap(low), DoubleBuffer.wrap(close), LongBuffer.wrap(volume), 0, n);
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int epochDay(int i) {
+        return dates.get(index(i));
+    }
+
+    public LocalDate date(int i) {
+        return LocalDate.ofEpochDay(epochDay(i));
+    }
+
+    public double open(int i) {
+        return open.get(index(i));
+    }
+
+    public double high(int i) {
+        return high.get(index(i));
+    }
+
+    public double low(int i) {
+        return low.get(index(i));
+    }
+
+    public double close(int i) {
+        return close.get(index(i));
+    }
+
+    public long volume(int i) {
+        return volume.get(index(i));
+    }
+
+    public double lastClose() {
+        return close(size - 1);
+    }
+
+    /**
+     * Bar {@code i} as a {@link StockData}, for code that still takes objects.
+     */
+    public StockData bar(int i) {
+        return new StockData(date(i).toString(), open(i), high(i), low(i), close(i), volume(i));
+    }
+
+    /**
+     * Bars [from, to) of this series, sharing its columns.
+     */
+    public StockSeries view(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("view [" + from + ", " + to + ") of " + size + " bars");
+        }
+        return new StockSeries(ticker, dates, open, high, low, close, volume, offset + from, to - from);
+    }
+
+    /**
+     * The last {@code bars} bars, or the whole series if it is shorter.
+     */
+    public StockSeries tail(int bars) {
+        return view(Math.max(0, size - bars), size);
+    }
+
+    /**
+     * Index of the first bar on or after {@code date}, or {@link #size()} if none.
+     */
+    public int indexOf(LocalDate date) {
+        int day = (int) date.toEpochDay();
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochDay(mid) < day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int index(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("bar " + i + " of " + size);
+        }
+        return offset + i;
+    }
+}
@@ -0,0 +1,304 @@
+package com.aitasks.models.stock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Daily bars of many tickers in columnar form. A store is built in memory with
+ * {@link Builder}, either on the heap or off-heap in direct buffers, and can be
+ * written to a file that {@link #map} later memory-maps without parsing, so a
+ * multi-year, multi-thousand-ticker history costs almost no heap. The file is
+ * little-endian:
+ * <pre>
+ * int    magic ("OHLC")
+ * int    format version
+ * int    number of tickers
+ * int    directory bytes
+ * per ticker: short name length, UTF-8 name, long region offset, int bars
+ * per ticker region (8-byte aligned):
+ *        int dates[bars] (epoch days), padded to 8 bytes,
+ *        double open[bars], high[bars], low[bars], close[bars], long volume[bars]
+ * </pre>
+ * Stores are immutable and thread-safe.
+ */
+public class StockSeriesStore {
+    private static final int MAGIC = 0x4F484C43;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final Map<String, StockSeries> series;
+
+    private StockSeriesStore(Map<String, StockSeries> series) {
+        this.series = Collections.unmodifiableMap(series);
+    }
+
+    /**
+     * Maps a store file. Each ticker's columns stay mapped while its series is in use.
+     */
+    public static StockSeriesStore map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a stock series store: " + path);
+            }
+            int version = header.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported stock series store version " + version + ": " + path);
+            }
+            int tickers = header.getInt(8);
+            ByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, header.getInt(12))
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+            Map<String, StockSeries> series = new LinkedHashMap<>(tickers * 2);
+            for (int t = 0; t < tickers; t++) {
+                byte[] name = new byte[directory.getShort()];
+                directory.get(name);
+                long offset = directory.getLong();
+                int bars = directory.getInt();
+                // Mapped per ticker so no single mapping hits the 2 GB buffer limit
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset, regionBytes(bars));
+                String ticker = new String(name, StandardCharsets.UTF_8);
+                series.put(ticker, columns(ticker, region, bars));
+            }
+            return new StockSeriesStore(series);
+        }
+    }
+
+    public StockSeries get(String ticker) {
+        return series.get(ticker);
+    }
+
+    public Set<String> tickers() {
+        return series.keySet();
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    public long getBarCount() {
+        long bars = 0;
+        for (StockSeries s : series.values()) {
+            bars += s.size();
+        }
+        return bars;
+    }
+
+    public void write(Path path) throws IOException {
+        ByteBuffer directory = ByteBuffer.allocate(directoryBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        long offset = align(HEADER_BYTES + directory.capacity());
+        for (Map.Entry<String, StockSeries> entry : series.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            directory.putShort((short) name.length).put(name).putLong(offset).putInt(entry.getValue().size());
+            offset += regionBytes(entry.getValue().size());
+        }
+        directory.flip();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(MAGIC).putInt(VERSION).putInt(series.size()).putInt(directory.remaining());
+        header.flip();
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            writeFully(channel, directory);
+            channel.position(align(channel.position()));
+            for (StockSeries s : series.values()) {
+                ByteBuffer region = ByteBuffer.allocate(regionBytes(s.size())).order(ByteOrder.LITTLE_ENDIAN);
+                fill(region, s);
+                writeFully(channel, region);
+            }
+            // Make the data durable before the rename can make it visible
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        // Replace atomically so a crash never leaves a half-written store behind
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int directoryBytes() {
+        int bytes = 0;
+        for (String ticker : series.keySet()) {
+            bytes += 2 + ticker.getBytes(StandardCharsets.UTF_8).length + 8 + 4;
+        }
+        return bytes;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Lays out one ticker's columns in {@code region}, which must be {@link #regionBytes} long.
+     */
+    private static void fill(ByteBuffer region, StockSeries s) {
+        int n = s.size();
+        int doubles = align(4 * n);
+        for (int i = 0; i < n; i++) {
+            region.putInt(4 * i, s.epochDay(i));
+            region.putDouble(doubles + 8 * i, s.open(i));
+            region.putDouble(doubles + 8 * (n + i), s.high(i));
+            region.putDouble(doubles + 8 * (2 * n + i), s.low(i));
+            region.putDouble(doubles + 8 * (3 * n + i), s.close(i));
+            region.putLong(doubles + 8 * (4 * n + i), s.volume(i));
+        }
+    }
+
+    private static StockSeries columns(String ticker, ByteBuffer region, int n) {
+        int doubles = align(4 * n);
+        return new StockSeries(
+            ticker,
+            slice(region, 0, 4 * n).asIntBuffer(),
+            slice(region, doubles, 8 * n).asDoubleBuffer(),
+            slice(region, doubles + 8 * n, 8 * n).asDoubleBuffer(),
+            slice(region, doubles + 16 * n, 8 * n).asDoubleBuffer(),
+            slice(region, doubles + 24 * n, 8 * n).asDoubleBuffer(),
+            slice(region, doubles + 32 * n, 8 * n).asLongBuffer(),
+            0,
+            n
+        );
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int from, int bytes) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(from).limit(from + bytes);
+        // slice() resets the byte order to big-endian
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int regionBytes(int bars) {
+        return align(4 * bars) + 40 * bars;
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Collects bars per ticker into growing primitive columns, without one
+     * object per bar. Bars of a ticker must be added in strictly increasing
+     * date order, since {@link StockSeries#indexOf} binary-searches the dates.
+     */
+    public static class Builder {
+        private final Map<String, Columns> columns = new LinkedHashMap<>();
+
+        /**
+         * @throws IllegalArgumentException if {@code date} is not after the ticker's last bar
+         */
+        public Builder add(String ticker, LocalDate date, double open, double high, double low,
+                           double close, long volume) {
+            int day = (int) date.toEpochDay();
+            Columns c = columns.computeIfAbsent(ticker, t -> new Columns());
+            if (c.size > 0 && day <= c.dates[c.size - 1]) {
+                throw new IllegalArgumentException("Bars of " + ticker + " must be in date order: " + date
+                    + " after " + LocalDate.ofEpochDay(c.dates[c.size - 1]));
+            }
+            c.add(day, open, high, low, close, volume);
+            return this;
+        }
+
+        public Builder add(String ticker, StockData bar) {
+            return add(ticker, LocalDate.parse(bar.getDate()), bar.getOpen(), bar.getHigh(), bar.getLow(),
+                bar.getClose(), bar.getVolume());
+        }
+
+        public Builder addAll(String ticker, List<StockData> bars) {
+            for (StockData bar : bars) {
+                add(ticker, bar);
+            }
+            return this;
+        }
+
+        /**
+         * Store with heap columns trimmed to size.
+         */
+        public StockSeriesStore build() {
+            Map<String, StockSeries> series = new LinkedHashMap<>(columns.size() * 2);
+            columns.forEach((ticker, c) -> series.put(ticker, c.toSeries(ticker)));
+            return new StockSeriesStore(series);
+        }
+
+        /**
+         * Store with each ticker's columns in a direct buffer outside the heap.
+         */
+        public StockSeriesStore buildOffHeap() {
+            Map<String, StockSeries> series = new LinkedHashMap<>(columns.size() * 2);
+            columns.forEach((ticker, c) -> {
+                StockSeries heap = c.toSeries(ticker);
+                ByteBuffer region = ByteBuffer.allocateDirect(regionBytes(heap.size())).order(ByteOrder.LITTLE_ENDIAN);
+                fill(region, heap);
+                series.put(ticker, columns(ticker, region, heap.size()));
+            });
+            return new StockSeriesStore(series);
+        }
+    }
+
+    private static final class Columns {
+        private int[] dates = new int[256];
+        private double[] open = new double[256];
+        private double[] high = new double[256];
+        private double[] low = new double[256];
+        private double[] close = new double[256];
+        private long[] volume = new long[256];
+        private int size;
+
+        void add(int date, double o, double h, double l, double c, long v) {
+            if (size == dates.length) {
+                int capacity = size << 1;
+                dates = Arrays.copyOf(dates, capacity);
+                open = Arrays.copyOf(open, capacity);
+                high = Arrays.copyOf(high, capacity);
+                low = Arrays.copyOf(low, capacity);
+                close = Arrays.copyOf(close, capacity);
+                volume = Arrays.copyOf(volume, capacity);
+            }
+            dates[size] = date;
+            open[size] = o;
+            high[size] = h;
+            low[size] = l;
+            close[size] = c;
+            volume[size++] = v;
+        }
+
+        StockSeries toSeries(String ticker) {
+            return new StockSeries(
+                ticker,
+                IntBuffer.wrap(Arrays.copyOf(dates, size)),
+                DoubleBuffer.wrap(Arrays.copyOf(open, size)),
+                DoubleBuffer.wrap(Arrays.copyOf(high, size)),
+                DoubleBuffer.wrap(Arrays.copyOf(low, size)),
+                DoubleBuffer.wrap(Arrays.copyOf(close, size)),
+                LongBuffer.wrap(Arrays.copyOf(volume, size)),
+                0,
+                size
+            );
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.aitasks.models.stock;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Minibatches of sliding windows over columnar series for training the LSTM.
+ * Each example is a {@code window}-bar stretch of one ticker as {@code [5, window]}
+ * features, labelled at every timestep with the next bar's close, so the
+ * network learns the one-step-ahead prediction that serving reads from its
+ * last timestep. Windows are built straight from the series columns, one
+ * {@code [batch, 5, window]} array per minibatch, and are shuffled on every
+ * {@link #reset()}. Every ticker is scaled with the same ranges, by default
+ * fitted over all series, so the model can be saved and served with them.
+ * <p>
+ * Not thread-safe, but {@link #asyncSupported()} so it can be wrapped in a
+ * prefetching iterator. Examples served are counted for throughput reports.
+ */
+public class StockWindowIterator implements DataSetIterator {
+    private static final long serialVersionUID = 1L;
+
+    private final List<StockSeries> series;
+    private final StockFeatures features;
+    private final int window;
+    private final int batchSize;
+    private final Random random;
+
+    // Every window as (series, first bar), in the current epoch's order
+    private final int[] windowSeries;
+    private final int[] windowStarts;
+    private int cursor;
+    private final AtomicLong served = new AtomicLong();
+    private DataSetPreProcessor preProcessor;
+
+    public StockWindowIterator(List<StockSeries> series, int window, int stride, int batchSize, long seed) {
+        this(series, fitted(series), window, stride, batchSize, seed);
+    }
+
+    /**
+     * Windows scaled with {@code features}, which must already be fitted.
+     */
+    StockWindowIterator(List<StockSeries> series, StockFeatures features, int window, int stride,
+                        int batchSize, long seed) {
+        this.series = series;
+        this.features = features;
+        this.window = window;
+        this.batchSize = batchSize;
+        this.random = new Random(seed);
+
+        int windows = 0;
+        for (int s = 0; s < series.size(); s++) {
+            // The last window needs one more bar for its final label
+            int usable = series.get(s).size() - window;
+            if (usable > 0) {
+                windows += (usable - 1) / stride + 1;
+            }
+        }
+        this.windowSeries = new int[windows];
+        this.windowStarts = new int[windows];
+        int w = 0;
+        for (int s = 0; s < series.size(); s++) {
+            for (int start = 0; start + window < series.get(s).size(); start += stride) {
+                windowSeries[w] = s;
+                windowStarts[w++] = start;
+            }
+        }
+        shuffle();
+    }
+
+    private static StockFeatures fitted(List<StockSeries> series) {
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        series.forEach(features::fit);
+        return features;
+    }
+
+    /**
+     * Number of windows per epoch.
+     */
+    public int getWindowCount() {
+        return windowStarts.length;
+    }
+
+    /**
+     * Examples handed out since construction, across epochs.
+     */
+    public long getExamplesServed() {
+        return served.get();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor < windowStarts.length;
+    }
+
+    @Override
+    public DataSet next() {
+        return next(batchSize);
+    }
+
+    @Override
+    public DataSet next(int num) {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int n = Math.min(num, windowStarts.length - cursor);
+        int featureStride = StockFeatures.COUNT * window;
+        double[] input = new double[n * featureStride];
+        double[] labels = new double[n * window];
+        for (int row = 0; row < n; row++) {
+            int s = windowSeries[cursor + row];
+            int start = windowStarts[cursor + row];
+            StockSeries bars = series.get(s);
+            features.write(bars, start, input, row * featureStride, window);
+            for (int t = 0; t < window; t++) {
+                labels[row * window + t] = features.normalizePrice(bars.close(start + t + 1));
+            }
+        }
+        cursor += n;
+        served.addAndGet(n);
+
+        DataSet batch = new DataSet(
+            Nd4j.create(input, new long[]{n, StockFeatures.COUNT, window}, 'c'),
+            Nd4j.create(labels, new long[]{n, 1, window}, 'c')
+        );
+        if (preProcessor != null) {
+            preProcessor.preProcess(batch);
+        }
+        return batch;
+    }
+
+    @Override
+    public void reset() {
+        cursor = 0;
+        shuffle();
+    }
+
+    private void shuffle() {
+        for (int i = windowStarts.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int s = windowSeries[i];
+            windowSeries[i] = windowSeries[j];
+            windowSeries[j] = s;
+            int start = windowStarts[i];
+            windowStarts[i] = windowStarts[j];
+            windowStarts[j] = start;
+        }
+    }
+
+    @Override
+    public int inputColumns() {
+        return StockFeatures.COUNT;
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return 1;
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return true;
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return null;
+    }
+}
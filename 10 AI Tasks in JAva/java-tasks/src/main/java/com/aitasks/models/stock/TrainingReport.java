@@ -0,0 +1,76 @@
+package com.aitasks.models.stock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Throughput of one training run: time and examples per second of every epoch.
+ */
+public class TrainingReport {
+    private final int workers;
+    private final List<Long> epochMillis = new ArrayList<>();
+    private final List<Long> epochExamples = new ArrayList<>();
+    private double finalScore;
+
+    TrainingReport(int workers) {
+        this.workers = workers;
+    }
+
+    void addEpoch(long millis, long examples) {
+        epochMillis.add(millis);
+        epochExamples.add(examples);
+    }
+
+    void setFinalScore(double finalScore) {
+        this.finalScore = finalScore;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getEpochs() {
+        return epochMillis.size();
+    }
+
+    public List<Long> getEpochMillis() {
+        return Collections.unmodifiableList(epochMillis);
+    }
+
+    public long getTotalMillis() {
+        long total = 0;
+        for (long millis : epochMillis) {
+            total += millis;
+        }
+        return total;
+    }
+
+    public long getTotalExamples() {
+        long total = 0;
+        for (long examples : epochExamples) {
+            total += examples;
+        }
+        return total;
+    }
+
+    public double getExamplesPerSecond() {
+        long millis = getTotalMillis();
+        return millis == 0 ? 0.0 : getTotalExamples() * 1000.0 / millis;
+    }
+
+    /**
+     * Loss of the last minibatch, as reported by the network.
+     */
+    public double getFinalScore() {
+        return finalScore;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TrainingReport[epochs=%d, workers=%d, examples=%d, time=%d ms, "
+                + "%.1f examples/s, meanEpoch=%d ms, finalScore=%.6f]",
+            getEpochs(), workers, getTotalExamples(), getTotalMillis(), getExamplesPerSecond(),
+            getEpochs() == 0 ? 0 : getTotalMillis() / getEpochs(), finalScore);
+    }
+}
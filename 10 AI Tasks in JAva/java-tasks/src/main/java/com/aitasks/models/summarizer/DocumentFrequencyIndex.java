@@ -0,0 +1,292 @@
+package com.aitasks.models.summarizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Corpus-wide document frequencies for TF-IDF sentence scoring. The index is a
+ * read-only open-addressing hash table laid out in one buffer, so the file
+ * format and the in-memory form are the same and a persisted index is used
+ * straight from a memory-mapped file without being parsed.
+ * <pre>
+ * int    magic ("IDFX")
+ * int    format version
+ * long   number of documents
+ * int    number of words
+ * int    slot count (power of two)
+ * int    slots[slotCount]: entry offset + 1, 0 marks an empty slot
+ * per word: int document frequency, byte length, ASCII bytes
+ * </pre>
+ * Counted words are ASCII by construction (see {@link SentenceTokenizer});
+ * words longer than 255 characters are not indexed.
+ */
+public class DocumentFrequencyIndex {
+    private static final int MAGIC = 0x49444658;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int MAX_WORD_LENGTH = 255;
+    private static final int DOCUMENTS_PER_TASK = 64;
+
+    private final ByteBuffer buffer;
+    private final long documents;
+    private final int words;
+    private final int mask;
+    private final int entriesStart;
+
+    private DocumentFrequencyIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.documents = buffer.getLong(8);
+        this.words = buffer.getInt(16);
+        int slotCount = buffer.getInt(20);
+        this.mask = slotCount - 1;
+        this.entriesStart = HEADER_BYTES + 4 * slotCount;
+    }
+
+    /**
+     * Counts in how many documents each word occurs, splitting the corpus across the pool.
+     */
+    static DocumentFrequencyIndex build(List<String> documents, ForkJoinPool pool) {
+        WordTable frequencies = pool.invoke(new CountTask(documents, 0, documents.size()));
+        return new DocumentFrequencyIndex(layOut(frequencies, documents.size()));
+    }
+
+    /**
+     * Maps a persisted index. The file stays mapped for the life of the index.
+     * Its table is checked once here, so a truncated or otherwise inconsistent
+     * file is reported as an {@link IOException} rather than failing lookups later.
+     */
+    public static DocumentFrequencyIndex read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a document frequency index: " + path);
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported document frequency index version " + version + ": " + path);
+            }
+            checkTable(buffer, path);
+            return new DocumentFrequencyIndex(buffer);
+        }
+    }
+
+    /**
+     * Checks that every slot points at an entry inside the buffer and that at
+     * least one slot is empty, so every lookup ends within bounds.
+     */
+    private static void checkTable(ByteBuffer buffer, Path path) throws IOException {
+        long documents = buffer.getLong(8);
+        int words = buffer.getInt(16);
+        int slotCount = buffer.getInt(20);
+        if (documents < 0 || words < 0 || slotCount <= 0 || Integer.bitCount(slotCount) != 1
+                || words >= slotCount) {
+            throw new IOException("Corrupt document frequency index header: " + path);
+        }
+        long entriesStart = HEADER_BYTES + 4L * slotCount;
+        if (entriesStart > buffer.limit()) {
+            throw new IOException("Truncated document frequency index: " + path);
+        }
+        int used = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int entry = buffer.getInt(HEADER_BYTES + 4 * slot);
+            if (entry == 0) {
+                continue;
+            }
+            used++;
+            long offset = entriesStart + Integer.toUnsignedLong(entry) - 1;
+            if (offset + 5 > buffer.limit()
+                    || offset + 5 + Byte.toUnsignedInt(buffer.get((int) offset + 4)) > buffer.limit()) {
+                throw new IOException("Truncated document frequency index: " + path);
+            }
+        }
+        if (used != words) {
+            throw new IOException("Corrupt document frequency index, " + used + " slots used for "
+                + words + " words: " + path);
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer contents = buffer.duplicate();
+            contents.clear();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+            // Make the data durable before the rename can make it visible
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        // Replace atomically so a crash never leaves a half-written index behind
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public long getDocumentCount() {
+        return documents;
+    }
+
+    public int getWordCount() {
+        return words;
+    }
+
+    public int documentFrequency(String word) {
+        char[] chars = word.toCharArray();
+        return documentFrequency(chars, 0, chars.length);
+    }
+
+    /**
+     * Smoothed inverse document frequency, {@code log((1 + N) / (1 + df)) + 1}.
+     * Words the corpus has never seen get the highest weight.
+     */
+    double idf(char[] word, int from, int length) {
+        return Math.log((1.0 + documents) / (1.0 + documentFrequency(word, from, length))) + 1.0;
+    }
+
+    int documentFrequency(char[] word, int from, int length) {
+        if (length > MAX_WORD_LENGTH) {
+            return 0;
+        }
+        int slot = WordTable.hash(word, from, length) & mask;
+        while (true) {
+            int entry = buffer.getInt(HEADER_BYTES + 4 * slot);
+            if (entry == 0) {
+                return 0;
+            }
+            int offset = entriesStart + entry - 1;
+            if (matches(offset + 4, word, from, length)) {
+                return buffer.getInt(offset);
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean matches(int offset, char[] word, int from, int length) {
+        if (Byte.toUnsignedInt(buffer.get(offset)) != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + 1 + i) != word[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer layOut(WordTable frequencies, long documents) {
+        int indexed = 0;
+        int entryBytes = 0;
+        for (int id = 0; id < frequencies.size(); id++) {
+            if (frequencies.length(id) <= MAX_WORD_LENGTH) {
+                indexed++;
+                entryBytes += 5 + frequencies.length(id);
+            }
+        }
+        int slotCount = Integer.highestOneBit(Math.max(16, indexed * 2 - 1)) << 1;
+        int entriesStart = HEADER_BYTES + 4 * slotCount;
+        ByteBuffer buffer = ByteBuffer.allocate(entriesStart + entryBytes);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(documents).putInt(indexed).putInt(slotCount);
+
+        char[] chars = frequencies.chars();
+        int offset = 0;
+        for (int id = 0; id < frequencies.size(); id++) {
+            int length = frequencies.length(id);
+            if (length > MAX_WORD_LENGTH) {
+                continue;
+            }
+            int start = frequencies.start(id);
+            int slot = WordTable.hash(chars, start, length) & (slotCount - 1);
+            while (buffer.getInt(HEADER_BYTES + 4 * slot) != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            buffer.putInt(HEADER_BYTES + 4 * slot, offset + 1);
+
+            int position = entriesStart + offset;
+            buffer.putInt(position, frequencies.frequency(id));
+            buffer.put(position + 4, (byte) length);
+            for (int i = 0; i < length; i++) {
+                buffer.put(position + 5 + i, (byte) chars[start + i]);
+            }
+            offset += 5 + length;
+        }
+        return buffer;
+    }
+
+    /**
+     * Document frequencies of documents [from, to), merged left to right.
+     */
+    private static final class CountTask extends RecursiveTask<WordTable> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> documents;
+        private final int from;
+        private final int to;
+
+        CountTask(List<String> documents, int from, int to) {
+            this.documents = documents;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected WordTable compute() {
+            if (to - from <= DOCUMENTS_PER_TASK) {
+                return count();
+            }
+            int mid = (from + to) >>> 1;
+            CountTask right = new CountTask(documents, mid, to);
+            right.fork();
+            WordTable left = new CountTask(documents, from, mid).compute();
+            WordTable other = right.join();
+            for (int id = 0; id < other.size(); id++) {
+                left.add(left.intern(other, id), other.frequency(id));
+            }
+            return left;
+        }
+
+        private WordTable count() {
+            DocumentCounter counter = new DocumentCounter();
+            SentenceTokenizer tokenizer = new SentenceTokenizer();
+            SentenceTokenizer.WordSink sink = counter::add;
+            for (int d = from; d < to; d++) {
+                counter.document = d + 1;
+                String text = documents.get(d);
+                tokenizer.tokenize(text, 0, text.length(), sink);
+            }
+            return counter.table;
+        }
+    }
+
+    /**
+     * Counts each word at most once per document.
+     */
+    private static final class DocumentCounter {
+        private final WordTable table = new WordTable(1 << 12);
+        // Document number + 1 that last counted each word
+        private int[] lastSeen = new int[1 << 12];
+        private int document;
+
+        void add(char[] word, int length) {
+            int id = table.intern(word, length);
+            if (id == lastSeen.length) {
+                lastSeen = Arrays.copyOf(lastSeen, id << 1);
+            }
+            if (lastSeen[id] != document) {
+                lastSeen[id] = document;
+                table.increment(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.aitasks.models.summarizer;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join counterpart of {@link SentenceScorer} for long documents. The
+ * sentences are cut into fixed-size segments; each segment tokenizes its
+ * sentences into its own {@link WordTable} in parallel, the segment tables are
+ * merged into one document-wide table, and each segment then scores its
+ * sentences against the merged frequencies in parallel. Frequencies are exact
+ * integer sums, so the scores are bit-identical to the sequential scorer.
+ */
+final class ParallelSentenceScorer {
+    private static final int SEGMENT_SIZE = 4_096;
+
+    private final ForkJoinPool pool;
+
+    ParallelSentenceScorer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    double[] score(String[] sentences) {
+        Segment[] segments = new Segment[(sentences.length + SEGMENT_SIZE - 1) / SEGMENT_SIZE];
+        for (int i = 0; i < segments.length; i++) {
+            int from = i * SEGMENT_SIZE;
+            segments[i] = new Segment(from, Math.min(sentences.length, from + SEGMENT_SIZE));
+        }
+        pool.invoke(new SegmentTask(segments, 0, segments.length, sentences, null, null));
+
+        WordTable merged = new WordTable(1 << 12);
+        for (Segment segment : segments) {
+            segment.mergeInto(merged);
+        }
+
+        double[] scores = new double[sentences.length];
+        pool.invoke(new SegmentTask(segments, 0, segments.length, sentences, merged, scores));
+        return scores;
+    }
+
+    /**
+     * Counts the segments when {@code merged} is null, otherwise scores them.
+     */
+    private static final class SegmentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Segment[] segments;
+        private final int from;
+        private final int to;
+        private final String[] sentences;
+        private final WordTable merged;
+        private final double[] scores;
+
+        SegmentTask(Segment[] segments, int from, int to, String[] sentences,
+                    WordTable merged, double[] scores) {
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.sentences = sentences;
+            this.merged = merged;
+            this.scores = scores;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    if (merged == null) {
+                        segments[i].count(sentences);
+                    } else {
+                        segments[i].score(merged, scores);
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SegmentTask(segments, from, mid, sentences, merged, scores),
+                new SegmentTask(segments, mid, to, sentences, merged, scores));
+        }
+    }
+
+    /**
+     * Token ids and split lengths of one run of sentences, against the segment's own table.
+     */
+    private static final class Segment {
+        private final int from;
+        private final int to;
+        private final WordTable words = new WordTable(1 << 10);
+        private final int[] sentenceStarts;
+        private final int[] splitLengths;
+        private int[] tokenIds = new int[1 << 12];
+        private int tokens;
+        private int[] mergedIds;
+
+        Segment(int from, int to) {
+            this.from = from;
+            this.to = to;
+            this.sentenceStarts = new int[to - from + 1];
+            this.splitLengths = new int[to - from];
+        }
+
+        void count(String[] sentences) {
+            SentenceTokenizer tokenizer = new SentenceTokenizer();
+            SentenceTokenizer.WordSink counter = this::add;
+            for (int s = from; s < to; s++) {
+                sentenceStarts[s - from] = tokens;
+                splitLengths[s - from] = tokenizer.tokenize(sentences[s], 0, sentences[s].length(), counter);
+            }
+            sentenceStarts[to - from] = tokens;
+        }
+
+        void mergeInto(WordTable merged) {
+            mergedIds = new int[words.size()];
+            for (int id = 0; id < mergedIds.length; id++) {
+                mergedIds[id] = merged.intern(words, id);
+                merged.add(mergedIds[id], words.frequency(id));
+            }
+        }
+
+        void score(WordTable merged, double[] scores) {
+            for (int s = 0; s < to - from; s++) {
+                long sum = 0;
+                for (int t = sentenceStarts[s]; t < sentenceStarts[s + 1]; t++) {
+                    sum += merged.frequency(mergedIds[tokenIds[t]]);
+                }
+                scores[from + s] = SentenceScorer.score(sum, splitLengths[s]);
+            }
+        }
+
+        private void add(char[] word, int length) {
+            int id = words.intern(word, length);
+            words.increment(id);
+            if (tokens == tokenIds.length) {
+                tokenIds = Arrays.copyOf(tokenIds, tokens << 1);
+            }
+            tokenIds[tokens++] = id;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.aitasks.models.summarizer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
+
+/**
+ * Fixed pool of sentence detectors sharing one loaded {@link SentenceModel}.
+ * {@link SentenceDetectorME} keeps per-call state and is not thread-safe, but
+ * the model is immutable, so each detector costs little beyond the shared
+ * model. Callers borrow a detector for the duration of one detection and wait
+ * when all of them are busy; how often and how long they wait is recorded.
+ */
+public class SentenceDetectorPool {
+    private final BlockingQueue<SentenceDetectorME> idle;
+    private final int size;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public SentenceDetectorPool(SentenceModel model, int size) {
+        this.size = size;
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            idle.add(new SentenceDetectorME(model));
+        }
+    }
+
+    /**
+     * Borrows a detector, blocking until one is free. Must be paired with {@link #release}.
+     */
+    SentenceDetectorME acquire() throws InterruptedException {
+        acquisitions.increment();
+        SentenceDetectorME detector = idle.poll();
+        if (detector != null) {
+            return detector;
+        }
+        long start = System.nanoTime();
+        detector = idle.take();
+        long waited = System.nanoTime() - start;
+        contended.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return detector;
+    }
+
+    void release(SentenceDetectorME detector) {
+        idle.add(detector);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getAvailable() {
+        return idle.size();
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Number of acquisitions that found every detector busy.
+     */
+    public long getContendedAcquisitions() {
+        return contended.sum();
+    }
+
+    /**
+     * Mean wait per acquisition, including the ones that did not wait.
+     */
+    public long getMeanWaitNanos() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0 : waitNanos.sum() / count;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SentenceDetectorPool[size=%d, available=%d, acquisitions=%d, "
+                + "contended=%d, meanWait=%d us, maxWait=%d us]",
+            size, getAvailable(), getAcquisitions(), getContendedAcquisitions(),
+            getMeanWaitNanos() / 1_000, getMaxWaitNanos() / 1_000);
+    }
+}
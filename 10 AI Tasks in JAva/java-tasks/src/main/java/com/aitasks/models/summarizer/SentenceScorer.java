@@ -0,0 +1,104 @@
+package com.aitasks.models.summarizer;
+
+import java.util.Arrays;
+
+/**
+ * Word-frequency sentence scorer behind {@link TextSummarizer}. Every sentence
+ * is tokenized exactly once by {@link SentenceTokenizer} into a flat array of
+ * word ids; word frequencies live in a primitive {@link WordTable}. All buffers
+ * are kept between calls, so scoring a document allocates nothing but the
+ * returned scores once the buffers have grown.
+ * <p>
+ * A sentence's score is the sum of its counted words' frequencies divided by
+ * its {@code split("\\W+")} length, as in the original heuristic.
+ * Instances are not thread-safe.
+ */
+final class SentenceScorer {
+    private final SentenceTokenizer tokenizer = new SentenceTokenizer();
+    private final SentenceTokenizer.WordSink counter = this::count;
+    private final WordTable words = new WordTable(1 << 10);
+
+    // Counted word ids of every sentence, sentence i at [sentenceStarts[i], sentenceStarts[i + 1])
+    private int[] tokenIds = new int[1 << 12];
+    private int[] sentenceStarts = new int[1 << 8];
+    private int[] splitLengths = new int[1 << 8];
+    private int tokens;
+    private double[] weights = new double[1 << 10];
+
+    /**
+     * Scores each sentence of one document; {@code scores[i]} belongs to {@code sentences[i]}.
+     */
+    double[] score(String[] sentences) {
+        tokenize(sentences);
+        double[] scores = new double[sentences.length];
+        for (int s = 0; s < sentences.length; s++) {
+            long sum = 0;
+            for (int t = sentenceStarts[s]; t < sentenceStarts[s + 1]; t++) {
+                sum += words.frequency(tokenIds[t]);
+            }
+            scores[s] = score(sum, splitLengths[s]);
+        }
+        return scores;
+    }
+
+    /**
+     * Scores like {@link #score(String[])} but weighs each word's in-document
+     * frequency by its inverse document frequency across a corpus (TF-IDF).
+     */
+    double[] score(String[] sentences, DocumentFrequencyIndex index) {
+        tokenize(sentences);
+        if (weights.length < words.size()) {
+            weights = new double[Math.max(words.size(), weights.length << 1)];
+        }
+        char[] chars = words.chars();
+        for (int id = 0; id < words.size(); id++) {
+            weights[id] = words.frequency(id) * index.idf(chars, words.start(id), words.length(id));
+        }
+
+        double[] scores = new double[sentences.length];
+        for (int s = 0; s < sentences.length; s++) {
+            double sum = 0;
+            for (int t = sentenceStarts[s]; t < sentenceStarts[s + 1]; t++) {
+                sum += weights[tokenIds[t]];
+            }
+            scores[s] = score(sum, splitLengths[s]);
+        }
+        return scores;
+    }
+
+    /**
+     * Sentence score from its summed word frequencies. Sentences without any
+     * words score zero rather than NaN, which would otherwise outrank every
+     * real sentence.
+     */
+    static double score(double frequencySum, int splitLength) {
+        return splitLength == 0 ? 0.0 : frequencySum / splitLength;
+    }
+
+    private void tokenize(String[] sentences) {
+        reset(sentences.length);
+        for (int s = 0; s < sentences.length; s++) {
+            sentenceStarts[s] = tokens;
+            splitLengths[s] = tokenizer.tokenize(sentences[s], 0, sentences[s].length(), counter);
+        }
+        sentenceStarts[sentences.length] = tokens;
+    }
+
+    private void count(char[] word, int length) {
+        int id = words.intern(word, length);
+        words.increment(id);
+        if (tokens == tokenIds.length) {
+            tokenIds = Arrays.copyOf(tokenIds, tokens << 1);
+        }
+        tokenIds[tokens++] = id;
+    }
+
+    private void reset(int sentences) {
+        if (sentences + 1 > sentenceStarts.length) {
+            sentenceStarts = new int[sentences + 1];
+            splitLengths = new int[sentences + 1];
+        }
+        words.clear();
+        tokens = 0;
+    }
+}
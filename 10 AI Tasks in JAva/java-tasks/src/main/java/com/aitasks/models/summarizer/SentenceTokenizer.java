@@ -0,0 +1,92 @@
+package com.aitasks.models.summarizer;
+
+import java.util.Arrays;
+
+/**
+ * Splits sentences into lower-cased words the way {@code toLowerCase().split("\\W+")}
+ * does, without building Strings. Only counted words are handed to the sink: those
+ * longer than two characters that are not stop words. Instances reuse one word
+ * buffer and are not thread-safe.
+ */
+final class SentenceTokenizer {
+    private static final char[][] STOP_WORDS = {
+        "the".toCharArray(), "a".toCharArray(), "an".toCharArray(), "and".toCharArray(),
+        "or".toCharArray(), "but".toCharArray(), "in".toCharArray(), "on".toCharArray(),
+        "at".toCharArray(), "to".toCharArray()
+    };
+    private static final int MIN_WORD_LENGTH = 3;
+
+    // Lower-cased ASCII word characters ([a-z0-9_]); 0 marks a delimiter
+    private static final char[] ASCII_WORD_CHARS = new char[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            ASCII_WORD_CHARS[c] = c;
+            ASCII_WORD_CHARS[Character.toUpperCase(c)] = c;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ASCII_WORD_CHARS[c] = c;
+        }
+        ASCII_WORD_CHARS['_'] = '_';
+    }
+
+    /**
+     * Receives each counted word; the buffer is only valid during the call.
+     */
+    interface WordSink {
+        void word(char[] buffer, int length);
+    }
+
+    private char[] word = new char[64];
+
+    /**
+     * Tokenizes {@code text[start, end)} and returns how many pieces
+     * {@code split("\\W+")} would have produced for it.
+     */
+    int tokenize(CharSequence text, int start, int end, WordSink sink) {
+        int pieces = 0;
+        int length = 0;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? wordChar(text.charAt(i)) : 0;
+            if (c != 0) {
+                if (length == word.length) {
+                    word = Arrays.copyOf(word, length << 1);
+                }
+                word[length++] = c;
+            } else if (length > 0) {
+                pieces++;
+                if (length >= MIN_WORD_LENGTH && !isStopWord(word, length)) {
+                    sink.word(word, length);
+                }
+                length = 0;
+            }
+        }
+        // split() keeps a leading empty piece before a leading delimiter and
+        // returns a single empty piece for an empty string
+        if (end == start) {
+            return 1;
+        }
+        return pieces > 0 && wordChar(text.charAt(start)) == 0 ? pieces + 1 : pieces;
+    }
+
+    private static boolean isStopWord(char[] buffer, int length) {
+        for (char[] stopWord : STOP_WORDS) {
+            if (stopWord.length == length && Arrays.equals(stopWord, 0, length, buffer, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the lower-cased character if it is a regex word character, else 0.
+     */
+    private static char wordChar(char c) {
+        if (c < 128) {
+            return ASCII_WORD_CHARS[c];
+        }
+        // A few non-ASCII letters lower-case into ASCII (e.g. the Kelvin sign)
+        char lower = Character.toLowerCase(c);
+        return lower < 128 ? ASCII_WORD_CHARS[lower] : 0;
+    }
+}
@@ -0,0 +1,237 @@
+package com.aitasks.models.summarizer;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.util.Span;
+
+/**
+ * Picks the top sentences of a file too large to hold as one String. The file is
+ * memory-mapped and decoded one chunk at a time; the sentence that straddles a
+ * chunk boundary is carried over and detected again together with the next
+ * chunk. The first pass counts sentences and word frequencies into a fixed-size
+ * count-min sketch; the second pass scores each sentence against it and keeps
+ * only the best candidates in a heap, ranked like {@link TopSentences}. Memory
+ * is bounded by the chunk size, the sketch and the selected sentences, whatever
+ * the size of the file.
+ * <p>
+ * Not thread-safe: it drives the caller's sentence detector.
+ */
+final class StreamingSentenceSelector {
+    private static final int SKETCH_DEPTH = 4;
+
+    private final SentenceDetectorME detector;
+    private final int chunkBytes;
+    private final int sketchWidth;
+    private final SentenceTokenizer tokenizer = new SentenceTokenizer();
+
+    StreamingSentenceSelector(SentenceDetectorME detector, int chunkBytes, int sketchWidth) {
+        this.detector = detector;
+        this.chunkBytes = chunkBytes;
+        this.sketchWidth = Integer.highestOneBit(Math.max(1_024, sketchWidth));
+    }
+
+    Selection select(Path path, double ratio) throws IOException {
+        WordSketch sketch = new WordSketch(sketchWidth);
+        SentenceTokenizer.WordSink counter = sketch::add;
+        int[] sentences = new int[1];
+        long chars = scan(path, (text, start, end) -> {
+            tokenizer.tokenize(text, start, end, counter);
+            sentences[0]++;
+        });
+
+        // Short inputs are returned whole
+        int limit = sentences[0] < 3 ? sentences[0] : Math.max(1, (int) (sentences[0] * ratio));
+        // Worst candidate at the head: lowest score, then latest sentence
+        PriorityQueue<Candidate> best = new PriorityQueue<>(
+            Comparator.comparingDouble((Candidate c) -> c.score)
+                .thenComparing(Comparator.comparingLong((Candidate c) -> c.index).reversed()));
+        double[] sum = new double[1];
+        SentenceTokenizer.WordSink scorer = (word, length) -> sum[0] += sketch.count(word, length);
+        long[] index = new long[1];
+        scan(path, (text, start, end) -> {
+            sum[0] = 0;
+            int pieces = tokenizer.tokenize(text, start, end, scorer);
+            double score = SentenceScorer.score(sum[0], pieces);
+            long sentence = index[0]++;
+            if (best.size() < limit) {
+                best.add(new Candidate(score, sentence, text.subSequence(start, end).toString()));
+            } else if (limit > 0 && score > best.peek().score) {
+                best.poll();
+                best.add(new Candidate(score, sentence, text.subSequence(start, end).toString()));
+            }
+        });
+
+        List<Candidate> selected = new ArrayList<>(best);
+        selected.sort(Comparator.comparingLong((Candidate c) -> c.index));
+        List<String> topSentences = new ArrayList<>(selected.size());
+        for (Candidate candidate : selected) {
+            topSentences.add(candidate.text);
+        }
+        return new Selection(chars, sentences[0], topSentences);
+    }
+
+    /**
+     * Feeds every sentence of the file to the visitor and returns the number of chars decoded.
+     */
+    private long scan(Path path, SentenceVisitor visitor) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer decoded = CharBuffer.allocate(chunkBytes);
+        StringBuilder pending = new StringBuilder();
+        long chars = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(chunkBytes, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                decoded.clear();
+                decoder.decode(window, decoded, last);
+                if (last) {
+                    decoder.flush(decoded);
+                }
+                decoded.flip();
+                chars += decoded.remaining();
+                // A multi-byte character cut by the window end is decoded with the next one
+                position += window.position();
+                pending.append(decoded);
+                pending.delete(0, emitSentences(pending, last, visitor));
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * Emits the complete sentences in {@code pending} and returns how many chars
+     * were consumed. Unless this is the end of the input, the last sentence may
+     * continue in the next chunk and is left in place.
+     */
+    private int emitSentences(StringBuilder pending, boolean last, SentenceVisitor visitor) {
+        Span[] spans = detector.sentPosDetect(pending);
+        int complete = last ? spans.length : spans.length - 1;
+        if (complete <= 0 && !last) {
+            if (pending.length() < chunkBytes) {
+                return 0;
+            }
+            // No boundary in a whole chunk: cut the run-on sentence here rather than grow
+            complete = spans.length;
+        }
+        for (int i = 0; i < complete; i++) {
+            visitor.sentence(pending, spans[i].getStart(), spans[i].getEnd());
+        }
+        return complete == spans.length ? pending.length() : spans[complete].getStart();
+    }
+
+    private interface SentenceVisitor {
+        void sentence(CharSequence text, int start, int end);
+    }
+
+    /**
+     * Sentences chosen from a file, in document order.
+     */
+    static final class Selection {
+        private final long chars;
+        private final int sentences;
+        private final List<String> topSentences;
+
+        Selection(long chars, int sentences, List<String> topSentences) {
+            this.chars = chars;
+            this.sentences = sentences;
+            this.topSentences = topSentences;
+        }
+
+        long chars() {
+            return chars;
+        }
+
+        int sentences() {
+            return sentences;
+        }
+
+        List<String> topSentences() {
+            return topSentences;
+        }
+    }
+
+    private static final class Candidate {
+        private final double score;
+        private final long index;
+        private final String text;
+
+        Candidate(double score, long index, String text) {
+            this.score = score;
+            this.index = index;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Count-min sketch of word frequencies with conservative updates. Counts are
+     * never underestimated and only overestimated on hash collisions.
+     */
+    private static final class WordSketch {
+        private final int[] counts;
+        private final int mask;
+
+        WordSketch(int width) {
+            this.counts = new int[SKETCH_DEPTH * width];
+            this.mask = width - 1;
+        }
+
+        void add(char[] word, int length) {
+            long hash = hash(word, length);
+            int min = count(hash);
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                int cell = cell(hash, row);
+                if (counts[cell] == min) {
+                    counts[cell]++;
+                }
+            }
+        }
+
+        int count(char[] word, int length) {
+            return count(hash(word, length));
+        }
+
+        private int count(long hash) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                min = Math.min(min, counts[cell(hash, row)]);
+            }
+            return min;
+        }
+
+        private int cell(long hash, int row) {
+            int h = (int) hash + row * ((int) (hash >>> 32) | 1);
+            return row * (mask + 1) + (h & mask);
+        }
+
+        private static long hash(char[] word, int length) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < length; i++) {
+                h = (h ^ word[i]) * 0x100000001b3L;
+            }
+            // Murmur3 fmix64 so both 32-bit halves are well mixed
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
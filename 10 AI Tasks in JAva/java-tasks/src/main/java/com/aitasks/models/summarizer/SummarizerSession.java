@@ -0,0 +1,237 @@
+package com.aitasks.models.summarizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.util.Span;
+
+/**
+ * Incremental word-frequency summary of append-only text such as a chat
+ * transcript or a log. Each append runs sentence detection on the unfinished
+ * tail only and tokenizes only the new sentences. Word frequencies and
+ * per-sentence frequency sums are updated in place: an inverted index from
+ * word to the sentences containing it means only sentences sharing a word
+ * with the new text are touched, so an append costs about the size of the new
+ * text rather than of the whole transcript.
+ * <p>
+ * The last detected sentence may still continue in the next append and is
+ * held back until more text arrives or {@link #flush()} is called. A held-back
+ * tail that reaches {@code maxPendingChars} without a sentence boundary is cut
+ * and committed as is, so text without terminators cannot make every append
+ * re-detect an ever longer tail. Scores are
+ * the same as {@link TextSummarizer#summarize(String, double)} computes with
+ * word-frequency scoring over the committed sentences. Sessions are
+ * thread-safe; appends and reads are serialized.
+ */
+public class SummarizerSession {
+    private final TextSummarizer summarizer;
+    private final int maxPendingChars;
+    private final SentenceTokenizer tokenizer = new SentenceTokenizer();
+    private final SentenceTokenizer.WordSink counter = this::count;
+    private final StringBuilder pending = new StringBuilder();
+    private final List<String> sentences = new ArrayList<>();
+    private final WordTable words = new WordTable(1 << 10);
+    private long length;
+
+    // Counted word ids of every sentence, sentence i at [sentenceStarts[i], sentenceStarts[i + 1])
+    private int[] tokenIds = new int[1 << 12];
+    private int tokens;
+    private int[] sentenceStarts = new int[1 << 8];
+    private int[] splitLengths = new int[1 << 8];
+    private long[] frequencySums = new long[1 << 8];
+    private double[] scores = new double[1 << 8];
+
+    // Sentences containing each word, once per occurrence
+    private int[][] postings = new int[1 << 10][];
+    private int[] postingSizes = new int[1 << 10];
+
+    // Frequency increase of each word during the current commit
+    private int[] deltas = new int[1 << 10];
+    private int[] touched = new int[1 << 10];
+    private int touchedCount;
+
+    SummarizerSession(TextSummarizer summarizer, int maxPendingChars) {
+        this.summarizer = summarizer;
+        this.maxPendingChars = maxPendingChars;
+    }
+
+    /**
+     * Appends text exactly as given; separate sentences need their own whitespace.
+     */
+    public synchronized void append(String text) throws InterruptedException {
+        pending.append(text);
+        length += text.length();
+        Span[] spans = detect();
+        int complete = spans.length - 1;
+        if (complete > 0) {
+            commit(spans, complete);
+            pending.delete(0, spans[complete].getStart());
+        } else if (pending.length() >= maxPendingChars) {
+            // No boundary within the cap: cut the run-on sentence here rather than grow
+            commit(spans, spans.length);
+            pending.setLength(0);
+        }
+    }
+
+    /**
+     * Commits the held-back last sentence, as at the end of the text.
+     */
+    public synchronized void flush() throws InterruptedException {
+        Span[] spans = detect();
+        commit(spans, spans.length);
+        pending.setLength(0);
+    }
+
+    /**
+     * Current summary of the committed sentences. Does not carry the original text.
+     */
+    public synchronized SummaryResult summary(double ratio) {
+        int n = sentences.size();
+        if (n < 3) {
+            StringJoiner text = new StringJoiner(" ");
+            sentences.forEach(text::add);
+            String tail = pending.toString().trim();
+            if (!tail.isEmpty()) {
+                text.add(tail);
+            }
+            return new SummaryResult(
+                length,
+                text.toString(),
+                1.0,
+                "Text is too short for summarization! 📝"
+            );
+        }
+        int[] selected = TopSentences.select(scores, n, Math.max(1, (int) (n * ratio)));
+        StringJoiner summary = new StringJoiner(" ");
+        for (int index : selected) {
+            summary.add(sentences.get(index));
+        }
+        return new SummaryResult(
+            length,
+            summary.toString(),
+            (double) selected.length / n,
+            summarizer.generateMessage(length, n)
+        );
+    }
+
+    public synchronized int getSentenceCount() {
+        return sentences.size();
+    }
+
+    public synchronized long getLength() {
+        return length;
+    }
+
+    private Span[] detect() throws InterruptedException {
+        SentenceDetectorPool pool = summarizer.getDetectorPool();
+        SentenceDetectorME detector = pool.acquire();
+        try {
+            return detector.sentPosDetect(pending);
+        } finally {
+            pool.release(detector);
+        }
+    }
+
+    private void commit(Span[] spans, int count) {
+        int first = sentences.size();
+        int firstToken = tokens;
+        ensureSentenceCapacity(first + count);
+        for (int i = 0; i < count; i++) {
+            String sentence = pending.substring(spans[i].getStart(), spans[i].getEnd());
+            int s = sentences.size();
+            sentences.add(sentence);
+            sentenceStarts[s] = tokens;
+            splitLengths[s] = tokenizer.tokenize(sentence, 0, sentence.length(), counter);
+            sentenceStarts[s + 1] = tokens;
+        }
+
+        // Earlier sentences gain the frequency increase of every word they share with the new ones
+        long work = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            work += postingSizes[touched[t]];
+        }
+        if (work > firstToken) {
+            for (int t = 0; t < touchedCount; t++) {
+                words.add(touched[t], deltas[touched[t]]);
+            }
+            rescore(0, first);
+        } else {
+            for (int t = 0; t < touchedCount; t++) {
+                int word = touched[t];
+                int[] sentencesOfWord = postings[word];
+                for (int p = 0; p < postingSizes[word]; p++) {
+                    int s = sentencesOfWord[p];
+                    frequencySums[s] += deltas[word];
+                    scores[s] = SentenceScorer.score(frequencySums[s], splitLengths[s]);
+                }
+                words.add(word, deltas[word]);
+            }
+        }
+        for (int t = 0; t < touchedCount; t++) {
+            deltas[touched[t]] = 0;
+        }
+        touchedCount = 0;
+
+        for (int s = first; s < sentences.size(); s++) {
+            for (int t = sentenceStarts[s]; t < sentenceStarts[s + 1]; t++) {
+                addPosting(tokenIds[t], s);
+            }
+        }
+        rescore(first, sentences.size());
+    }
+
+    private void rescore(int from, int to) {
+        for (int s = from; s < to; s++) {
+            long sum = 0;
+            for (int t = sentenceStarts[s]; t < sentenceStarts[s + 1]; t++) {
+                sum += words.frequency(tokenIds[t]);
+            }
+            frequencySums[s] = sum;
+            scores[s] = SentenceScorer.score(sum, splitLengths[s]);
+        }
+    }
+
+    private void count(char[] word, int wordLength) {
+        int id = words.intern(word, wordLength);
+        if (id == deltas.length) {
+            int capacity = id << 1;
+            deltas = Arrays.copyOf(deltas, capacity);
+            postings = Arrays.copyOf(postings, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+        }
+        if (deltas[id]++ == 0) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount << 1);
+            }
+            touched[touchedCount++] = id;
+        }
+        if (tokens == tokenIds.length) {
+            tokenIds = Arrays.copyOf(tokenIds, tokens << 1);
+        }
+        tokenIds[tokens++] = id;
+    }
+
+    private void addPosting(int word, int sentence) {
+        int[] list = postings[word];
+        int size = postingSizes[word];
+        if (list == null) {
+            list = postings[word] = new int[4];
+        } else if (size == list.length) {
+            list = postings[word] = Arrays.copyOf(list, size << 1);
+        }
+        list[size] = sentence;
+        postingSizes[word] = size + 1;
+    }
+
+    private void ensureSentenceCapacity(int sentenceCount) {
+        if (sentenceCount + 1 > sentenceStarts.length) {
+            int capacity = Math.max(sentenceCount + 1, sentenceStarts.length << 1);
+            sentenceStarts = Arrays.copyOf(sentenceStarts, capacity);
+            splitLengths = Arrays.copyOf(splitLengths, capacity);
+            frequencySums = Arrays.copyOf(frequencySums, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.aitasks.models.summarizer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Content-addressed cache of summaries for repeated requests. Entries are keyed
+ * by a 128-bit fingerprint of the text, its length and the ratio, so the
+ * original text is never kept. The cache is least-recently-used and bounded by weight, the
+ * bytes of summary text stored at two bytes per char.
+ * <p>
+ * Summaries can optionally live off-heap so a large cache adds little to GC
+ * work. They are then packed into fixed-size blocks carved from a few large
+ * direct slabs, which are allocated on demand up to the maximum weight and
+ * reused for the life of the cache; an off-heap entry weighs the whole blocks
+ * it occupies.
+ * <p>
+ * Messages are not cached, since some of them are picked at random; each hit
+ * asks the caller for a fresh one given the document's sentence count.
+ * <p>
+ * Two texts of equal length sharing both 64-bit halves of the fingerprint
+ * would share an entry; at 2^-128 per pair that risk is accepted. All methods are thread-safe.
+ */
+public class SummaryCache {
+    private static final long K1 = 0x9E3779B97F4A7C15L;
+    private static final long K2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long K3 = 0x165667B19E3779F9L;
+    private static final long K4 = 0x27D4EB2F165667C5L;
+    static final int BLOCK_BYTES = 256;
+    private static final int BLOCK_CHARS = BLOCK_BYTES / 2;
+    private static final int BLOCKS_PER_SLAB = (4 << 20) / BLOCK_BYTES;
+
+    private final long maxWeight;
+    private final boolean offHeap;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+
+    // Off-heap block storage; block b lives in slab b / BLOCKS_PER_SLAB
+    private final int maxBlocks;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int allocatedBlocks;
+    private int[] freeBlocks = new int[0];
+    private int freeCount;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxWeight maximum bytes of summary text to keep
+     * @param offHeap   whether summaries are stored in direct memory
+     */
+    public SummaryCache(long maxWeight, boolean offHeap) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("Maximum weight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.offHeap = offHeap;
+        this.maxBlocks = (int) Math.min(Integer.MAX_VALUE, maxWeight / BLOCK_BYTES);
+    }
+
+    /**
+     * Key of {@code text} summarized at {@code ratio}.
+     */
+    static Key key(String text, double ratio) {
+        int length = text.length();
+        // Two independent lanes over the same blocks, one pass for 128 bits
+        long h1 = K2 ^ length;
+        long h2 = K4 ^ length;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = text.charAt(i)
+                | (long) text.charAt(i + 1) << 16
+                | (long) text.charAt(i + 2) << 32
+                | (long) text.charAt(i + 3) << 48;
+            h1 = Long.rotateLeft(h1 ^ block * K1, 31) * K2;
+            h2 = Long.rotateLeft(h2 ^ block * K3, 27) * K4;
+        }
+        for (; i < length; i++) {
+            h1 = Long.rotateLeft(h1 ^ text.charAt(i) * K1, 31) * K2;
+            h2 = Long.rotateLeft(h2 ^ text.charAt(i) * K3, 27) * K4;
+        }
+        return new Key(finish(h1), finish(h2), length, Double.doubleToLongBits(ratio));
+    }
+
+    /**
+     * Cached summary for {@code key}, rebuilt around the caller's {@code text}
+     * with a message from {@code messages} for the cached sentence count, or null.
+     */
+    SummaryResult get(Key key, String text, IntFunction<String> messages) {
+        String summary;
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            // Off-heap blocks are only stable under the lock, so decode here
+            summary = entry == null ? null : entry.summary != null ? entry.summary : load(entry);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new SummaryResult(text, summary, entry.compressionRatio, messages.apply(entry.sentences));
+    }
+
+    /**
+     * Caches the summary of a document with {@code sentences} sentences. The
+     * result's message is not kept.
+     */
+    void put(Key key, SummaryResult result, int sentences) {
+        String summary = result.getSummary();
+        int blocks = offHeap ? blocksFor(summary.length()) : 0;
+        long entryWeight = offHeap ? (long) blocks * BLOCK_BYTES : 2L * summary.length();
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                release(previous);
+            }
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (weight + entryWeight > maxWeight) {
+                release(eldest.next());
+                eldest.remove();
+                evictions.increment();
+            }
+            Entry entry = offHeap
+                ? new Entry(null, store(summary, blocks), summary.length(), result.getCompressionRatio(),
+                    sentences, entryWeight)
+                : new Entry(summary, null, summary.length(), result.getCompressionRatio(),
+                    sentences, entryWeight);
+            entries.put(key, entry);
+            weight += entryWeight;
+        }
+    }
+
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            release(entry);
+        }
+        entries.clear();
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Bytes currently charged against the maximum weight.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Bytes of direct memory held by the slabs allocated so far.
+     */
+    public synchronized long getOffHeapBytes() {
+        return (long) allocatedBlocks * BLOCK_BYTES;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long lookups = hits.sum() + misses.sum();
+        return lookups == 0 ? 0.0 : (double) hits.sum() / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SummaryCache[size=%d, weight=%d/%d bytes, offHeap=%b (%d bytes), hits=%d, "
+                + "misses=%d, evictions=%d, hitRate=%.2f]",
+            getSize(), getWeight(), maxWeight, offHeap, getOffHeapBytes(), getHits(), getMisses(),
+            getEvictions(), getHitRate());
+    }
+
+    private static int blocksFor(int chars) {
+        return Math.max(1, (chars + BLOCK_CHARS - 1) / BLOCK_CHARS);
+    }
+
+    private void release(Entry entry) {
+        weight -= entry.weight;
+        if (entry.blocks != null) {
+            for (int block : entry.blocks) {
+                freeBlocks[freeCount++] = block;
+            }
+        }
+    }
+
+    /**
+     * Writes the summary's chars into {@code count} free blocks. The caller has
+     * evicted enough entries for them to exist within {@code maxBlocks}.
+     */
+    private int[] store(String summary, int count) {
+        int[] blocks = new int[count];
+        int written = 0;
+        for (int b = 0; b < count; b++) {
+            if (freeCount == 0) {
+                addSlab();
+            }
+            int block = freeBlocks[--freeCount];
+            blocks[b] = block;
+            ByteBuffer slab = slabs.get(block / BLOCKS_PER_SLAB);
+            int offset = (block % BLOCKS_PER_SLAB) * BLOCK_BYTES;
+            int chars = Math.min(BLOCK_CHARS, summary.length() - written);
+            for (int i = 0; i < chars; i++) {
+                slab.putChar(offset + 2 * i, summary.charAt(written + i));
+            }
+            written += chars;
+        }
+        return blocks;
+    }
+
+    private String load(Entry entry) {
+        char[] chars = new char[entry.length];
+        int read = 0;
+        for (int block : entry.blocks) {
+            ByteBuffer slab = slabs.get(block / BLOCKS_PER_SLAB);
+            int offset = (block % BLOCKS_PER_SLAB) * BLOCK_BYTES;
+            int count = Math.min(BLOCK_CHARS, entry.length - read);
+            for (int i = 0; i < count; i++) {
+                chars[read + i] = slab.getChar(offset + 2 * i);
+            }
+            read += count;
+        }
+        return new String(chars);
+    }
+
+    private void addSlab() {
+        int first = slabs.size() * BLOCKS_PER_SLAB;
+        int count = Math.min(BLOCKS_PER_SLAB, maxBlocks - first);
+        slabs.add(ByteBuffer.allocateDirect(count * BLOCK_BYTES));
+        allocatedBlocks += count;
+        if (freeBlocks.length < allocatedBlocks) {
+            freeBlocks = Arrays.copyOf(freeBlocks, allocatedBlocks);
+        }
+        // Hand out the slab's blocks in ascending order
+        for (int block = first + count - 1; block >= first; block--) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    /**
+     * Murmur3 64-bit finalizer.
+     */
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    static final class Key {
+        private final long hash;
+        private final long check;
+        private final int length;
+        private final long ratioBits;
+
+        Key(long hash, long check, int length, long ratioBits) {
+            this.hash = hash;
+            this.check = check;
+            this.length = length;
+            this.ratioBits = ratioBits;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && check == other.check && length == other.length
+                && ratioBits == other.ratioBits;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash ^ ratioBits * K1);
+        }
+    }
+
+    /**
+     * Cached summary; the text is either a String or UTF-16 chars in off-heap blocks.
+     */
+    private static final class Entry {
+        private final String summary;
+        private final int[] blocks;
+        private final int length;
+        private final double compressionRatio;
+        private final int sentences;
+        private final long weight;
+
+        Entry(String summary, int[] blocks, int length, double compressionRatio, int sentences, long weight) {
+            this.summary = summary;
+            this.blocks = blocks;
+            this.length = length;
+            this.compressionRatio = compressionRatio;
+            this.sentences = sentences;
+            this.weight = weight;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.aitasks.models.summarizer;
 
 public class SummaryResult {
     private final String originalText;
+    private final long originalLength;
     private final String summary;
     private final double compressionRatio;
     private final String message;
@@ -9,6 +10,20 @@ public class SummaryResult {
     public SummaryResult(String originalText, String summary, 
                         double compressionRatio, String message) {
         this.originalText = originalText;
+        this.originalLength = originalText.length();
+        this.summary = summary;
+        this.compressionRatio = compressionRatio;
+        this.message = message;
+    }
+    
+    /**
+     * Result that does not keep the original text, e.g. for a summarized file.
+     * {@link #getOriginalText()} returns null.
+     */
+    public SummaryResult(long originalLength, String summary,
+                        double compressionRatio, String message) {
+        this.originalText = null;
+        this.originalLength = originalLength;
         this.summary = summary;
         this.compressionRatio = compressionRatio;
         this.message = message;
@@ -16,6 +31,7 @@ public class SummaryResult {
     
     // Getters
     public String getOriginalText() { return originalText; }
+    public long getOriginalLength() { return originalLength; }
     public String getSummary() { return summary; }
     public double getCompressionRatio() { return compressionRatio; }
     public String getMessage() { return message; }
@@ -33,7 +49,7 @@ public class SummaryResult {
             
             %s
             """,
-            originalText.length(),
+            originalLength,
             summary.length(),
             (1 - compressionRatio) * 100,
             summary,
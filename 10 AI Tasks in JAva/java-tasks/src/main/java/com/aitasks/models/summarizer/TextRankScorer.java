@@ -0,0 +1,342 @@
+package com.aitasks.models.summarizer;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * TextRank sentence scoring over a sparse similarity graph. Sentences become
+ * sets of word ids; an inverted index from word to the sentences containing it
+ * means only pairs that share a word are ever compared, and words found in too
+ * many sentences are left out of the index so common terms cannot turn the
+ * graph dense. Edges are stored in compressed sparse rows and PageRank is
+ * iterated in parallel over row ranges on the fork/join pool.
+ * <p>
+ * Edge weights follow the TextRank paper, shared words over the log sizes of
+ * both sentences, using {@code log(1 + size)} so one-word sentences stay finite.
+ * Row ranges are fixed, so results do not depend on the pool's parallelism.
+ * Instances hold only settings and are thread-safe.
+ */
+final class TextRankScorer {
+    private static final int ROW_GRAIN = 256;
+    private static final int MIN_POSTINGS_LIMIT = 64;
+    private static final ThreadLocal<NeighbourScratch> SCRATCH = ThreadLocal.withInitial(NeighbourScratch::new);
+
+    private final ForkJoinPool pool;
+    private final double damping;
+    private final double maxDocumentFrequency;
+    private final int maxIterations;
+    private final double tolerance;
+
+    TextRankScorer(ForkJoinPool pool, double damping, double maxDocumentFrequency,
+                   int maxIterations, double tolerance) {
+        this.pool = pool;
+        this.damping = damping;
+        this.maxDocumentFrequency = maxDocumentFrequency;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+    }
+
+    double[] score(String[] sentences) {
+        int n = sentences.length;
+        if (n == 0) {
+            return new double[0];
+        }
+        SentenceWords words = new SentenceWords(sentences);
+        Postings postings = new Postings(words, Math.max(MIN_POSTINGS_LIMIT, (int) (maxDocumentFrequency * n)));
+        Graph graph = pool.invoke(new GraphTask(words, postings, 0, n));
+        return rank(graph, n);
+    }
+
+    private double[] rank(Graph graph, int n) {
+        // Column-normalise once: coefficient of edge (i, j) is w_ij / W_j
+        double[] outWeights = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int e = graph.rowStarts[i]; e < graph.rowStarts[i + 1]; e++) {
+                outWeights[i] += graph.weights[e];
+            }
+        }
+        double[] coefficients = new double[graph.edges];
+        for (int e = 0; e < coefficients.length; e++) {
+            coefficients[e] = graph.weights[e] / outWeights[graph.columns[e]];
+        }
+
+        double[] ranks = new double[n];
+        double[] next = new double[n];
+        Arrays.fill(ranks, 1.0 / n);
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            // Isolated sentences spread their rank evenly instead of leaking it
+            double dangling = 0;
+            for (int i = 0; i < n; i++) {
+                if (outWeights[i] == 0) {
+                    dangling += ranks[i];
+                }
+            }
+            double base = (1 - damping) / n + damping * dangling / n;
+            double delta = pool.invoke(new IterationTask(graph, coefficients, ranks, next, base, 0, n));
+            double[] swap = ranks;
+            ranks = next;
+            next = swap;
+            if (delta < tolerance) {
+                break;
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Computes one PageRank step for rows [from, to) and returns their L1 change.
+     */
+    private final class IterationTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final Graph graph;
+        private final double[] coefficients;
+        private final double[] ranks;
+        private final double[] next;
+        private final double base;
+        private final int from;
+        private final int to;
+
+        IterationTask(Graph graph, double[] coefficients, double[] ranks, double[] next,
+                      double base, int from, int to) {
+            this.graph = graph;
+            this.coefficients = coefficients;
+            this.ranks = ranks;
+            this.next = next;
+            this.base = base;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= ROW_GRAIN * 4) {
+                double delta = 0;
+                for (int i = from; i < to; i++) {
+                    double sum = 0;
+                    for (int e = graph.rowStarts[i]; e < graph.rowStarts[i + 1]; e++) {
+                        sum += coefficients[e] * ranks[graph.columns[e]];
+                    }
+                    next[i] = base + damping * sum;
+                    delta += Math.abs(next[i] - ranks[i]);
+                }
+                return delta;
+            }
+            int mid = (from + to) >>> 1;
+            IterationTask right = new IterationTask(graph, coefficients, ranks, next, base, mid, to);
+            right.fork();
+            double left = new IterationTask(graph, coefficients, ranks, next, base, from, mid).compute();
+            return left + right.join();
+        }
+    }
+
+    /**
+     * Builds the rows [from, to) of the similarity graph.
+     */
+    private static final class GraphTask extends RecursiveTask<Graph> {
+        private static final long serialVersionUID = 1L;
+
+        private final SentenceWords words;
+        private final Postings postings;
+        private final int from;
+        private final int to;
+
+        GraphTask(SentenceWords words, Postings postings, int from, int to) {
+            this.words = words;
+            this.postings = postings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Graph compute() {
+            if (to - from <= ROW_GRAIN) {
+                return buildRows();
+            }
+            int mid = (from + to) >>> 1;
+            GraphTask right = new GraphTask(words, postings, mid, to);
+            right.fork();
+            Graph left = new GraphTask(words, postings, from, mid).compute();
+            return left.append(right.join());
+        }
+
+        private Graph buildRows() {
+            // Reused by every leaf this worker runs; shared[] is all zeros between rows
+            NeighbourScratch scratch = SCRATCH.get();
+            scratch.ensureCapacity(words.sentences);
+            int[] shared = scratch.shared;
+            int[] touched = scratch.touched;
+            Graph rows = new Graph(from, to);
+            for (int i = from; i < to; i++) {
+                int neighbours = 0;
+                for (int w = words.starts[i]; w < words.starts[i + 1]; w++) {
+                    int word = words.ids[w];
+                    if (!postings.indexed(word)) {
+                        continue;
+                    }
+                    for (int p = postings.starts[word]; p < postings.starts[word + 1]; p++) {
+                        int j = postings.sentences[p];
+                        if (j != i && shared[j]++ == 0) {
+                            touched[neighbours++] = j;
+                        }
+                    }
+                }
+                double logSize = Math.log1p(words.size(i));
+                for (int k = 0; k < neighbours; k++) {
+                    int j = touched[k];
+                    rows.add(j, shared[j] / (logSize + Math.log1p(words.size(j))));
+                    shared[j] = 0;
+                }
+                rows.endRow(i);
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Per-thread shared-word counts by sentence and the list of sentences counted
+     * so far for the current row. Grows with the largest document seen.
+     */
+    private static final class NeighbourScratch {
+        private int[] shared = new int[0];
+        private int[] touched = new int[0];
+
+        void ensureCapacity(int sentences) {
+            if (shared.length < sentences) {
+                shared = new int[sentences];
+                touched = new int[sentences];
+            }
+        }
+    }
+
+    /**
+     * Distinct counted word ids of every sentence, sentence i at [starts[i], starts[i + 1]).
+     */
+    private static final class SentenceWords {
+        private final int sentences;
+        private final int[] starts;
+        private final WordTable table = new WordTable(1 << 12);
+        private int[] ids = new int[1 << 12];
+        private int size;
+        private int vocabulary;
+
+        // Sentence number + 1 that last added each word, to keep ids distinct per sentence
+        private int[] lastSeen = new int[1 << 12];
+        private int current;
+
+        SentenceWords(String[] text) {
+            this.sentences = text.length;
+            this.starts = new int[text.length + 1];
+            SentenceTokenizer tokenizer = new SentenceTokenizer();
+            SentenceTokenizer.WordSink sink = this::add;
+            for (int s = 0; s < text.length; s++) {
+                starts[s] = size;
+                current = s + 1;
+                tokenizer.tokenize(text[s], 0, text[s].length(), sink);
+            }
+            starts[text.length] = size;
+            this.vocabulary = table.size();
+        }
+
+        int size(int sentence) {
+            return starts[sentence + 1] - starts[sentence];
+        }
+
+        private void add(char[] word, int length) {
+            int id = table.intern(word, length);
+            if (id == lastSeen.length) {
+                lastSeen = Arrays.copyOf(lastSeen, id << 1);
+            }
+            if (lastSeen[id] != current) {
+                lastSeen[id] = current;
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size << 1);
+                }
+                ids[size++] = id;
+            }
+        }
+    }
+
+    /**
+     * Inverted index from word id to the sentences containing it, in sentence order.
+     * Words in more than {@code limit} sentences are not indexed.
+     */
+    private static final class Postings {
+        private final int[] starts;
+        private final int[] sentences;
+        private final int limit;
+
+        Postings(SentenceWords words, int limit) {
+            this.limit = limit;
+            this.starts = new int[words.vocabulary + 1];
+            for (int w = 0; w < words.size; w++) {
+                starts[words.ids[w] + 1]++;
+            }
+            for (int id = 0; id < words.vocabulary; id++) {
+                starts[id + 1] += starts[id];
+            }
+            this.sentences = new int[words.size];
+            int[] fill = Arrays.copyOf(starts, words.vocabulary);
+            for (int s = 0; s < words.sentences; s++) {
+                for (int w = words.starts[s]; w < words.starts[s + 1]; w++) {
+                    sentences[fill[words.ids[w]]++] = s;
+                }
+            }
+        }
+
+        boolean indexed(int word) {
+            return starts[word + 1] - starts[word] <= limit;
+        }
+    }
+
+    /**
+     * Compressed sparse rows for sentences [firstRow, lastRow).
+     */
+    private static final class Graph {
+        private final int firstRow;
+        private int lastRow;
+        private int[] rowStarts;
+        private int[] columns = new int[1 << 10];
+        private double[] weights = new double[1 << 10];
+        private int edges;
+
+        Graph(int firstRow, int lastRow) {
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.rowStarts = new int[lastRow - firstRow + 1];
+        }
+
+        void add(int column, double weight) {
+            if (edges == columns.length) {
+                columns = Arrays.copyOf(columns, edges << 1);
+                weights = Arrays.copyOf(weights, edges << 1);
+            }
+            columns[edges] = column;
+            weights[edges++] = weight;
+        }
+
+        void endRow(int row) {
+            rowStarts[row - firstRow + 1] = edges;
+        }
+
+        /**
+         * Appends the rows of the graph that directly follows this one.
+         */
+        Graph append(Graph next) {
+            int rows = lastRow - firstRow;
+            int[] mergedStarts = Arrays.copyOf(rowStarts, rows + next.lastRow - next.firstRow + 1);
+            for (int r = 1; r < next.rowStarts.length; r++) {
+                mergedStarts[rows + r] = edges + next.rowStarts[r];
+            }
+            columns = Arrays.copyOf(columns, edges + next.edges);
+            weights = Arrays.copyOf(weights, edges + next.edges);
+            System.arraycopy(next.columns, 0, columns, edges, next.edges);
+            System.arraycopy(next.weights, 0, weights, edges, next.edges);
+            rowStarts = mergedStarts;
+            edges += next.edges;
+            lastRow = next.lastRow;
+            return this;
+        }
+    }
+}
@@ -1,13 +1,43 @@
 package com.aitasks.models.summarizer;
 
 import com.aitasks.core.BaseAITask;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import opennlp.tools.sentdetect.SentenceDetectorME;
 import opennlp.tools.sentdetect.SentenceModel;
 
+/**
+ * Frequency-based extractive summarizer. A shared instance can serve concurrent
+ * requests: sentence detectors are borrowed from a pool built over one loaded
+ * model, and each thread scores with its own reusable {@link SentenceScorer}.
+ * Batches of related documents are scored with TF-IDF against a shared
+ * {@link DocumentFrequencyIndex}.
+ */
 public class TextSummarizer extends BaseAITask {
-    private SentenceDetectorME sentenceDetector;
+    private SentenceDetectorPool detectorPool;
+    private final ThreadLocal<SentenceScorer> scorers = ThreadLocal.withInitial(SentenceScorer::new);
+    private ForkJoinPool scoringPool;
+    private ParallelSentenceScorer parallelScorer;
+    private int parallelMinSentences;
+    private TextRankScorer textRankScorer;
+    private int streamChunkBytes;
+    private int streamSketchWidth;
+    private int sessionMaxPendingChars;
+    private Path indexPath;
+    private volatile DocumentFrequencyIndex corpusIndex;
+    private SummaryCache summaryCache;
+    private ThreadPoolExecutor asyncExecutor;
+    private ThreadPoolExecutor batchExecutor;
     private final Random random = new Random();
     
     private final String[] coffeeBreakMessages = {
@@ -22,11 +52,74 @@ public class TextSummarizer extends BaseAITask {
     public void initialize() throws Exception {
         logger.info("Initializing TextSummarizer...");
         try {
-            // Initialize sentence detector
+            int processors = Runtime.getRuntime().availableProcessors();
+            
+            // Initialize sentence detectors, all sharing the one loaded model
             SentenceModel model = new SentenceModel(
                 getClass().getResourceAsStream("/models/en-sent.bin")
             );
-            sentenceDetector = new SentenceDetectorME(model);
+            detectorPool = new SentenceDetectorPool(model, Integer.parseInt(
+                config.getProperty("summarizer.detector.pool.size", String.valueOf(processors))));
+            
+            // Files are summarized in memory-mapped chunks against a fixed-size word sketch
+            streamChunkBytes = Integer.parseInt(config.getProperty("summarizer.stream.chunk.mb", "8")) << 20;
+            streamSketchWidth = Integer.parseInt(config.getProperty("summarizer.stream.sketch.width", "1048576"));
+            
+            // Sessions cut a run-on tail at this length instead of re-detecting it on every append
+            sessionMaxPendingChars = Integer.parseInt(
+                config.getProperty("summarizer.session.max.pending.chars", "16384"));
+            
+            // Long documents are scored on a fork/join pool
+            int parallelism = Integer.parseInt(config.getProperty("summarizer.parallelism",
+                String.valueOf(processors)));
+            parallelMinSentences = Integer.parseInt(config.getProperty("summarizer.parallel.min.sentences", "5000"));
+            scoringPool = new ForkJoinPool(parallelism);
+            parallelScorer = new ParallelSentenceScorer(scoringPool);
+            
+            // Batch documents block on the detector pool, so they run on plain threads
+            batchExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+            
+            // Optional TextRank scoring instead of the word-frequency heuristic
+            String algorithm = config.getProperty("summarizer.algorithm", "frequency");
+            if ("textrank".equalsIgnoreCase(algorithm)) {
+                textRankScorer = new TextRankScorer(
+                    scoringPool,
+                    Double.parseDouble(config.getProperty("summarizer.textrank.damping", "0.85")),
+                    Double.parseDouble(config.getProperty("summarizer.textrank.max.document.frequency", "0.05")),
+                    Integer.parseInt(config.getProperty("summarizer.textrank.max.iterations", "100")),
+                    Double.parseDouble(config.getProperty("summarizer.textrank.tolerance", "1e-6"))
+                );
+            } else if (!"frequency".equalsIgnoreCase(algorithm)) {
+                throw new IllegalArgumentException("Unknown summarizer.algorithm: " + algorithm);
+            }
+            
+            // Reuse the corpus document-frequency index from an earlier buildIndex, if any
+            indexPath = Paths.get(config.getProperty("summarizer.idf.index", "models/summarizer-idf.bin"));
+            if (Files.exists(indexPath)) {
+                try {
+                    corpusIndex = DocumentFrequencyIndex.read(indexPath);
+                    logger.info("Loaded document frequency index of {} documents, {} words",
+                        corpusIndex.getDocumentCount(), corpusIndex.getWordCount());
+                } catch (IOException e) {
+                    logger.warn("Skipping unreadable document frequency index {}, batches need buildIndex",
+                        indexPath, e);
+                }
+            }
+            
+            // Repeated requests are answered from a content-addressed summary cache
+            long cacheBytes = Long.parseLong(config.getProperty("summarizer.cache.max.mb", "0")) << 20;
+            if (cacheBytes > 0) {
+                summaryCache = new SummaryCache(cacheBytes,
+                    Boolean.parseBoolean(config.getProperty("summarizer.cache.off.heap", "false")));
+            }
+            
+            // Bounded executor behind summarizeAsync; a full queue rejects instead of piling up
+            int asyncThreads = Integer.parseInt(config.getProperty("summarizer.async.threads",
+                String.valueOf(processors)));
+            asyncExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Integer.parseInt(
+                    config.getProperty("summarizer.async.queue.capacity", "1000"))));
             
             initialized = true;
             logger.info("TextSummarizer initialized successfully");
@@ -38,43 +131,177 @@ public class TextSummarizer extends BaseAITask {
     
     public SummaryResult summarize(String text, double ratio) {
         checkInitialized();
+        SummaryCache.Key key = null;
+        if (summaryCache != null) {
+            key = SummaryCache.key(text, ratio);
+            // Messages can be random, so each hit gets a fresh one
+            SummaryResult cached = summaryCache.get(key, text,
+                sentenceCount -> generateMessage(text.length(), sentenceCount));
+            if (cached != null) {
+                return cached;
+            }
+        }
         try {
-            // Split text into sentences
-            String[] sentences = sentenceDetector.sentDetect(text);
+            String[] sentences = detectSentences(text);
+            SummaryResult result = summarize(text, sentences, ratio, null);
+            // Texts too short to summarize come back whole, so only real summaries are kept
+            if (key != null && sentences.length >= 3) {
+                summaryCache.put(key, result, sentences.length);
+            }
+            return result;
+        } catch (Exception e) {
+            return failedSummary(text, e);
+        }
+    }
+    
+    private SummaryResult summarize(String text, double ratio, DocumentFrequencyIndex index) throws Exception {
+        return summarize(text, detectSentences(text), ratio, index);
+    }
+    
+    private SummaryResult summarize(String text, String[] sentences, double ratio, DocumentFrequencyIndex index) {
+        if (sentences.length < 3) {
+            return new SummaryResult(
+                text,
+                text,
+                1.0,
+                "Text is too short for summarization! 📝"
+            );
+        }
+        
+        // Calculate sentence scores, indexed like the sentences
+        double[] scores = index != null
+            ? scorers.get().score(sentences, index)
+            : scoreSentences(sentences);
+        
+        // Select top sentences, kept in document order
+        int numSentences = Math.max(1, (int)(sentences.length * ratio));
+        int[] topSentences = TopSentences.select(scores, numSentences);
+        
+        // Build summary
+        String summary = joinSentences(sentences, topSentences);
+        
+        // Generate message based on text length
+        String message = generateMessage(text.length(), sentences.length);
+        
+        return new SummaryResult(
+            text,
+            summary,
+            (double) topSentences.length / sentences.length,
+            message
+        );
+    }
+    
+    private SummaryResult failedSummary(String text, Exception e) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        logger.error("Summarization failed", e);
+        return new SummaryResult(
+            text,
+            "Failed to generate summary: " + e.getMessage(),
+            0.0,
+            "Error during summarization 😅"
+        );
+    }
+    
+    /**
+     * Summarizes the same text at several ratios, e.g. for side-by-side views.
+     * Sentences are detected, scored and ranked once; each result takes its
+     * sentences from the top of that ranking, so it matches what
+     * {@link #summarize(String, double)} returns for its ratio. Results are in
+     * the order of {@code ratios}.
+     */
+    public List<SummaryResult> summarize(String text, double[] ratios) {
+        checkInitialized();
+        List<SummaryResult> results = new ArrayList<>(ratios.length);
+        try {
+            String[] sentences = detectSentences(text);
             
             if (sentences.length < 3) {
-                return new SummaryResult(
-                    text,
-                    text,
-                    1.0,
-                    "Text is too short for summarization! 📝"
-                );
+                for (int r = 0; r < ratios.length; r++) {
+                    results.add(new SummaryResult(
+                        text,
+                        text,
+                        1.0,
+                        "Text is too short for summarization! 📝"
+                    ));
+                }
+                return results;
             }
             
-            // Calculate sentence scores
-            Map<String, Double> sentenceScores = calculateSentenceScores(sentences);
+            // Rank once, deep enough for the largest ratio
+            double[] scores = scoreSentences(sentences);
+            int deepest = 0;
+            for (double ratio : ratios) {
+                deepest = Math.max(deepest, Math.max(1, (int) (sentences.length * ratio)));
+            }
+            int[] ranking = TopSentences.rank(scores, deepest);
             
-            // Select top sentences
-            int numSentences = Math.max(1, (int)(sentences.length * ratio));
-            List<String> topSentences = selectTopSentences(sentences, sentenceScores, numSentences);
+            String message = generateMessage(text.length(), sentences.length);
+            for (double ratio : ratios) {
+                int numSentences = Math.min(ranking.length, Math.max(1, (int) (sentences.length * ratio)));
+                int[] topSentences = Arrays.copyOf(ranking, numSentences);
+                Arrays.sort(topSentences);
+                results.add(new SummaryResult(
+                    text,
+                    joinSentences(sentences, topSentences),
+                    (double) topSentences.length / sentences.length,
+                    message
+                ));
+            }
+            return results;
             
-            // Build summary
-            String summary = String.join(" ", topSentences);
+        } catch (Exception e) {
+            SummaryResult failed = failedSummary(text, e);
+            results.clear();
+            for (int r = 0; r < ratios.length; r++) {
+                results.add(failed);
+            }
+            return results;
+        }
+    }
+    
+    /**
+     * Summarizes a UTF-8 text file of any size without loading it into memory.
+     * The result does not carry the original text. Files are always scored with
+     * the word-frequency heuristic, since TextRank needs the whole sentence graph.
+     */
+    public SummaryResult summarize(Path path, double ratio) {
+        checkInitialized();
+        try {
+            StreamingSentenceSelector.Selection selection;
+            SentenceDetectorME detector = detectorPool.acquire();
+            try {
+                selection = new StreamingSentenceSelector(detector, streamChunkBytes, streamSketchWidth)
+                    .select(path, ratio);
+            } finally {
+                detectorPool.release(detector);
+            }
+            String summary = String.join(" ", selection.topSentences());
             
-            // Generate message based on text length
-            String message = generateMessage(text.length(), sentences.length);
+            if (selection.sentences() < 3) {
+                return new SummaryResult(
+                    selection.chars(),
+                    summary,
+                    1.0,
+                    "Text is too short for summarization! 📝"
+                );
+            }
             
             return new SummaryResult(
-                text,
+                selection.chars(),
                 summary,
-                (double) topSentences.size() / sentences.length,
-                message
+                (double) selection.topSentences().size() / selection.sentences(),
+                generateMessage(selection.chars(), selection.sentences())
             );
             
         } catch (Exception e) {
-            logger.error("Summarization failed", e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.error("Summarization of {} failed", path, e);
             return new SummaryResult(
-                text,
+                0,
                 "Failed to generate summary: " + e.getMessage(),
                 0.0,
                 "Error during summarization 😅"
@@ -82,51 +309,143 @@ public class TextSummarizer extends BaseAITask {
         }
     }
     
-    private Map<String, Double> calculateSentenceScores(String[] sentences) {
-        // Create word frequency map
-        Map<String, Integer> wordFreq = new HashMap<>();
-        for (String sentence : sentences) {
-            String[] words = sentence.toLowerCase().split("\\W+");
-            for (String word : words) {
-                if (isSignificantWord(word)) {
-                    wordFreq.merge(word, 1, Integer::sum);
+    /**
+     * Summarizes on the bounded summarization executor. When its queue is full
+     * the returned future fails with a {@link RejectedExecutionException}.
+     */
+    public CompletableFuture<SummaryResult> summarizeAsync(String text, double ratio) {
+        checkInitialized();
+        try {
+            return CompletableFuture.supplyAsync(() -> summarize(text, ratio), asyncExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Summarizes a batch of related documents with TF-IDF scoring against the
+     * corpus index. The index is never built implicitly from a batch; call
+     * {@link #buildIndex(List)} on a representative corpus first.
+     *
+     * @throws IllegalStateException if there is no corpus index yet
+     */
+    public List<SummaryResult> summarizeBatch(List<String> documents, double ratio) {
+        checkInitialized();
+        DocumentFrequencyIndex index = corpusIndex;
+        if (index == null) {
+            throw new IllegalStateException("No document frequency index; call buildIndex first");
+        }
+        return summarizeBatch(documents, ratio, index);
+    }
+    
+    /**
+     * Summarizes a batch of documents in parallel, weighting words by their
+     * document frequency in {@code index}. Results are in the order of {@code documents}.
+     * Documents run on a thread pool of their own rather than the scoring
+     * fork/join pool, since they block while waiting for a sentence detector.
+     */
+    public List<SummaryResult> summarizeBatch(List<String> documents, double ratio,
+                                              DocumentFrequencyIndex index) {
+        checkInitialized();
+        List<CompletableFuture<SummaryResult>> futures = new ArrayList<>(documents.size());
+        for (String document : documents) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return summarize(document, ratio, index);
+                } catch (Exception e) {
+                    return failedSummary(document, e);
                 }
-            }
+            }, batchExecutor));
         }
-        
-        // Score sentences based on word frequency
-        Map<String, Double> sentenceScores = new HashMap<>();
-        for (String sentence : sentences) {
-            String[] words = sentence.toLowerCase().split("\\W+");
-            double score = Arrays.stream(words)
-                .filter(this::isSignificantWord)
-                .mapToDouble(word -> wordFreq.getOrDefault(word, 0))
-                .sum() / words.length;
-            sentenceScores.put(sentence, score);
+        List<SummaryResult> results = new ArrayList<>(documents.size());
+        for (CompletableFuture<SummaryResult> future : futures) {
+            results.add(future.join());
         }
-        
-        return sentenceScores;
+        return results;
+    }
+    
+    /**
+     * Builds the document-frequency index of a corpus in parallel, persists it
+     * to {@code summarizer.idf.index} and makes it the index for later batches.
+     */
+    public DocumentFrequencyIndex buildIndex(List<String> documents) {
+        checkInitialized();
+        long start = System.nanoTime();
+        DocumentFrequencyIndex index = DocumentFrequencyIndex.build(documents, scoringPool);
+        logger.info("Built document frequency index of {} documents, {} words in {} ms",
+            index.getDocumentCount(), index.getWordCount(), (System.nanoTime() - start) / 1_000_000);
+        try {
+            index.write(indexPath);
+        } catch (IOException e) {
+            logger.warn("Could not save document frequency index to {}", indexPath, e);
+        }
+        corpusIndex = index;
+        return index;
+    }
+    
+    public DocumentFrequencyIndex getCorpusIndex() {
+        return corpusIndex;
+    }
+    
+    /**
+     * Opens an incremental session for text that only grows, such as a chat transcript.
+     */
+    public SummarizerSession openSession() {
+        checkInitialized();
+        return new SummarizerSession(this, sessionMaxPendingChars);
+    }
+    
+    /**
+     * The summary cache, or null when {@code summarizer.cache.max.mb} is 0.
+     */
+    public SummaryCache getSummaryCache() {
+        return summaryCache;
     }
     
-    private List<String> selectTopSentences(String[] sentences,
-                                          Map<String, Double> sentenceScores,
-                                          int numSentences) {
-        return Arrays.stream(sentences)
-            .sorted((s1, s2) -> Double.compare(
-                sentenceScores.getOrDefault(s2, 0.0),
-                sentenceScores.getOrDefault(s1, 0.0)
-            ))
-            .limit(numSentences)
-            .collect(Collectors.toList());
+    public SentenceDetectorPool getDetectorPool() {
+        return detectorPool;
     }
     
-    private boolean isSignificantWord(String word) {
-        // Filter out common stop words
-        Set<String> stopWords = Set.of("the", "a", "an", "and", "or", "but", "in", "on", "at", "to");
-        return word.length() > 2 && !stopWords.contains(word);
+    /**
+     * Number of summarizeAsync requests waiting for an executor thread.
+     */
+    public int getQueuedRequests() {
+        return asyncExecutor.getQueue().size();
     }
     
-    private String generateMessage(int textLength, int sentenceCount) {
+    private String[] detectSentences(String text) throws InterruptedException {
+        SentenceDetectorME detector = detectorPool.acquire();
+        try {
+            return detector.sentDetect(text);
+        } finally {
+            detectorPool.release(detector);
+        }
+    }
+    
+    private double[] scoreSentences(String[] sentences) {
+        if (textRankScorer != null) {
+            return textRankScorer.score(sentences);
+        }
+        return sentences.length >= parallelMinSentences
+            ? parallelScorer.score(sentences)
+            : scorers.get().score(sentences);
+    }
+    
+    private static String joinSentences(String[] sentences, int[] selected) {
+        StringJoiner summary = new StringJoiner(" ");
+        for (int index : selected) {
+            summary.add(sentences[index]);
+        }
+        return summary.toString();
+    }
+    
+    /**
+     * Message for a document of the given size; coffee-break messages are picked at random.
+     */
+    String generateMessage(long textLength, int sentenceCount) {
+        if (sentenceCount < 3) {
+            return "Text is too short for summarization! 📝";
+        }
         if (textLength > 1000 || sentenceCount > 10) {
             return coffeeBreakMessages[random.nextInt(coffeeBreakMessages.length)];
         }
@@ -135,7 +454,29 @@ public class TextSummarizer extends BaseAITask {
     
     @Override
     public void cleanup() {
-        sentenceDetector = null;
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+            asyncExecutor = null;
+        }
+        if (batchExecutor != null) {
+            batchExecutor.shutdown();
+            batchExecutor = null;
+        }
+        if (detectorPool != null) {
+            logger.info("Sentence detector pool: {}", detectorPool);
+            detectorPool = null;
+        }
+        if (summaryCache != null) {
+            logger.info("Summary cache: {}", summaryCache);
+            summaryCache = null;
+        }
+        if (scoringPool != null) {
+            scoringPool.shutdown();
+            scoringPool = null;
+        }
+        parallelScorer = null;
+        textRankScorer = null;
+        corpusIndex = null;
         initialized = false;
         logger.info("TextSummarizer cleaned up");
     }
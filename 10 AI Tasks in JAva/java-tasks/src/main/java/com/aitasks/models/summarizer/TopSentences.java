@@ -0,0 +1,105 @@
+package com.aitasks.models.summarizer;
+
+import java.util.Arrays;
+
+/**
+ * Top-k sentence selection over a score array. A bounded min-heap of sentence
+ * indices keeps the k best seen so far, so selection costs O(n log k) rather
+ * than a full sort. Higher scores win and ties go to the earlier sentence, which
+ * keeps summaries stable for a given text.
+ */
+final class TopSentences {
+    private TopSentences() {
+    }
+
+    /**
+     * Returns the indices of the {@code k} best-scoring sentences in document order.
+     */
+    static int[] select(double[] scores, int k) {
+        return select(scores, scores.length, k);
+    }
+
+    /**
+     * Like {@link #select(double[], int)} over the first {@code count} scores only.
+     */
+    static int[] select(double[] scores, int count, int k) {
+        int[] heap = heap(scores, count, k);
+        Arrays.sort(heap);
+        return heap;
+    }
+
+    /**
+     * Returns the indices of the {@code k} best-scoring sentences, best first.
+     * The first {@code j} entries are exactly what {@code select(scores, j)}
+     * picks, so one ranking serves every summary length up to {@code k}.
+     */
+    static int[] rank(double[] scores, int k) {
+        int[] heap = heap(scores, scores.length, k);
+        // Heapsort: moving the worst remaining sentence to the back leaves the best first
+        for (int end = heap.length - 1; end > 0; end--) {
+            int worst = heap[0];
+            heap[0] = heap[end];
+            heap[end] = worst;
+            siftDown(heap, end, scores);
+        }
+        return heap;
+    }
+
+    private static int[] heap(double[] scores, int count, int k) {
+        int limit = Math.min(k, count);
+        int[] heap = new int[limit];
+        int size = 0;
+        for (int i = 0; i < count && limit > 0; i++) {
+            if (size < limit) {
+                heap[size] = i;
+                siftUp(heap, size++, scores);
+            } else if (scores[i] > scores[heap[0]]) {
+                // Later sentences only replace the worst one on a strictly higher score
+                heap[0] = i;
+                siftDown(heap, limit, scores);
+            }
+        }
+        return heap;
+    }
+
+    /**
+     * True if sentence {@code a} ranks below sentence {@code b}.
+     */
+    private static boolean worse(double scoreA, int a, double scoreB, int b) {
+        return scoreA < scoreB || (scoreA == scoreB && a > b);
+    }
+
+    private static void siftUp(int[] heap, int position, double[] scores) {
+        int sentence = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!worse(scores[sentence], sentence, scores[heap[parent]], heap[parent])) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = sentence;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] scores) {
+        int sentence = heap[0];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size
+                    && worse(scores[heap[child + 1]], heap[child + 1], scores[heap[child]], heap[child])) {
+                child++;
+            }
+            if (!worse(scores[heap[child]], heap[child], scores[sentence], sentence)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = sentence;
+    }
+}
@@ -0,0 +1,181 @@
+package com.aitasks.models.summarizer;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing table interning lower-cased words to dense int ids, with a
+ * frequency per id. Word characters live in one shared pool, so interning a
+ * new word costs no allocation once the arrays have grown, and {@link #clear()}
+ * keeps the arrays for the next document. Not thread-safe.
+ */
+final class WordTable {
+    private static final int EMPTY = 0;
+
+    private char[] pool;
+    private int poolSize;
+    private int[] wordStarts;
+    private int[] wordLengths;
+    private int[] frequencies;
+    private int[] slots; // word id + 1, 0 marks an empty slot
+    private int mask;
+    private int size;
+
+    WordTable(int expectedWords) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedWords * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.wordStarts = new int[Math.max(16, expectedWords)];
+        this.wordLengths = new int[wordStarts.length];
+        this.frequencies = new int[wordStarts.length];
+        this.pool = new char[wordStarts.length * 8];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(slots, EMPTY);
+        poolSize = 0;
+        size = 0;
+    }
+
+    int frequency(int id) {
+        return frequencies[id];
+    }
+
+    void increment(int id) {
+        frequencies[id]++;
+    }
+
+    void add(int id, int count) {
+        frequencies[id] += count;
+    }
+
+    String word(int id) {
+        return new String(pool, wordStarts[id], wordLengths[id]);
+    }
+
+    /**
+     * Shared character pool; word {@code id} is at {@code [start(id), start(id) + length(id))}.
+     */
+    char[] chars() {
+        return pool;
+    }
+
+    int start(int id) {
+        return wordStarts[id];
+    }
+
+    int length(int id) {
+        return wordLengths[id];
+    }
+
+    /**
+     * Returns the id of the word in {@code buffer[0, length)}, or -1 if unknown.
+     */
+    int get(char[] buffer, int length) {
+        int slot = hash(buffer, 0, length) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (matches(entry - 1, buffer, 0, length)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the id of the word in {@code buffer[0, length)}, adding it with a
+     * frequency of zero if new.
+     */
+    int intern(char[] buffer, int length) {
+        return intern(buffer, 0, length);
+    }
+
+    /**
+     * Interns word {@code id} of another table and returns its id in this one.
+     */
+    int intern(WordTable other, int id) {
+        return intern(other.pool, other.wordStarts[id], other.wordLengths[id]);
+    }
+
+    private int intern(char[] buffer, int from, int length) {
+        int slot = hash(buffer, from, length) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == EMPTY) {
+                return append(buffer, from, length, slot);
+            }
+            if (matches(entry - 1, buffer, from, length)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int append(char[] buffer, int from, int length, int slot) {
+        if (size == wordStarts.length) {
+            int capacity = size << 1;
+            wordStarts = Arrays.copyOf(wordStarts, capacity);
+            wordLengths = Arrays.copyOf(wordLengths, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+        }
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(poolSize + length, pool.length << 1));
+        }
+        System.arraycopy(buffer, from, pool, poolSize, length);
+        int id = size++;
+        wordStarts[id] = poolSize;
+        wordLengths[id] = length;
+        frequencies[id] = 0;
+        poolSize += length;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash(slots.length << 1);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(pool, wordStarts[id], wordLengths[id]) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private boolean matches(int id, char[] buffer, int from, int length) {
+        if (wordLengths[id] != length) {
+            return false;
+        }
+        int start = wordStarts[id];
+        for (int i = 0; i < length; i++) {
+            if (pool[start + i] != buffer[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int hash(char[] buffer, int from, int length) {
+        int h = 0;
+        for (int i = from; i < from + length; i++) {
+            h = 31 * h + buffer[i];
+        }
+        // Murmur3 finalizer so short words spread across the table
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
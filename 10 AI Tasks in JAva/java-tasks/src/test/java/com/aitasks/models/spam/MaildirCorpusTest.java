@@ -0,0 +1,52 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MaildirCorpusTest {
+    @TempDir
+    Path directory;
+
+    private void message(String subdirectory, String name, String subject) throws IOException {
+        Path folder = Files.createDirectories(directory.resolve(subdirectory));
+        Files.write(folder.resolve(name), ("Subject: " + subject + "\n\nBody of " + name + "\n")
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readsCurAndNew() throws IOException {
+        message("cur", "1", "Quarterly report");
+        message("cur", "2", "Lunch");
+        message("new", "3", "Review");
+        Files.createDirectories(directory.resolve("tmp"));
+
+        List<String> contents = new ArrayList<>();
+        for (EmailMessage message : new MaildirCorpus(directory, EmailType.HAM)) {
+            contents.add(message.getContent());
+        }
+        Collections.sort(contents);
+        assertEquals(List.of("Lunch\nBody of 2", "Quarterly report\nBody of 1", "Review\nBody of 3"), contents);
+    }
+
+    @Test
+    void closingStopsAnAbandonedIteration() throws IOException {
+        message("cur", "1", "One");
+        message("cur", "2", "Two");
+        CloseableIterator<EmailMessage> messages = new MaildirCorpus(directory, EmailType.HAM).iterator();
+        assertTrue(messages.hasNext());
+        messages.next();
+        messages.close();
+        assertFalse(messages.hasNext());
+    }
+}
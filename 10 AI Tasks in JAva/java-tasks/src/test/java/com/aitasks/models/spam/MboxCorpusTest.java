@@ -0,0 +1,50 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MboxCorpusTest {
+    @TempDir
+    Path directory;
+
+    private Path mbox() throws IOException {
+        Path file = directory.resolve("spam.mbox");
+        Files.write(file, ("From a@example.com Mon Jan  1 00:00:00 2024\n"
+            + "Subject: Free prize\nFrom: a@example.com\n\nClaim it now\n"
+            + "From b@example.com Mon Jan  1 00:00:01 2024\n"
+            + "Subject: Cheap pills\n\nBuy today\n>From the team\n"
+            + "From c@example.com Mon Jan  1 00:00:02 2024\n"
+            + "Subject: Last chance\n\nAct fast\n").getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void decodesEveryMessage() throws IOException {
+        List<String> contents = new ArrayList<>();
+        for (EmailMessage message : new MboxCorpus(mbox(), EmailType.SPAM)) {
+            assertEquals(EmailType.SPAM, message.getType());
+            contents.add(message.getContent());
+        }
+        assertEquals(List.of("Free prize\nClaim it now", "Cheap pills\nBuy today\nFrom the team",
+            "Last chance\nAct fast"), contents);
+    }
+
+    @Test
+    void closingStopsAnAbandonedIteration() throws IOException {
+        CloseableIterator<EmailMessage> messages = new MboxCorpus(mbox(), EmailType.SPAM).iterator();
+        assertTrue(messages.hasNext());
+        messages.next();
+        messages.close();
+        assertFalse(messages.hasNext());
+    }
+}
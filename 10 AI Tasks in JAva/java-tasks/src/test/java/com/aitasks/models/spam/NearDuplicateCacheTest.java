@@ -0,0 +1,78 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class NearDuplicateCacheTest {
+    private static final String CAMPAIGN = "Congratulations you have been selected to receive a free iPhone, "
+        + "claim your prize today by clicking the link below before the offer expires";
+
+    private static NearDuplicateCache cache(int maxEntries) {
+        return new NearDuplicateCache(16, maxEntries, 60_000, 0.8);
+    }
+
+    @Test
+    void findsNearDuplicatesOfACampaign() {
+        NearDuplicateCache cache = cache(100);
+        cache.put(cache.signature(CAMPAIGN + " Dear Alice"), cache.getGeneration(), 0.97, 1_000);
+
+        assertEquals(0.97, cache.lookup(cache.signature(CAMPAIGN + " Dear Bob")));
+        assertTrue(Double.isNaN(cache.lookup(cache.signature("Minutes of the quarterly planning meeting"))));
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void messagesWithoutWordsHaveNoSignature() {
+        NearDuplicateCache cache = cache(100);
+        assertNull(cache.signature(" ...!? "));
+        assertNotNull(cache.signature("hello"));
+    }
+
+    @Test
+    void dropsVerdictsFromBeforeAClear() {
+        NearDuplicateCache cache = cache(100);
+        int[] signature = cache.signature(CAMPAIGN);
+        long generation = cache.getGeneration();
+        // The model is swapped while the message is being scored
+        cache.clear();
+        cache.put(signature, generation, 0.97, 1_000);
+
+        assertEquals(0, cache.size());
+        assertTrue(Double.isNaN(cache.lookup(signature)));
+
+        cache.put(signature, cache.getGeneration(), 0.1, 1_000);
+        assertEquals(0.1, cache.lookup(signature));
+    }
+
+    @Test
+    void evictsTheOldestEntryWhenFull() {
+        NearDuplicateCache cache = cache(2);
+        String[] messages = {"alpha beta gamma", "delta epsilon zeta", "eta theta iota"};
+        for (String message : messages) {
+            cache.put(cache.signature(message), cache.getGeneration(), 0.9, 1_000);
+        }
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(Double.isNaN(cache.lookup(cache.signature(messages[0]))));
+        assertEquals(0.9, cache.lookup(cache.signature(messages[2])));
+    }
+
+    @Test
+    void expiredEntriesMiss() {
+        NearDuplicateCache cache = new NearDuplicateCache(16, 100, 0, 0.8);
+        int[] signature = cache.signature(CAMPAIGN);
+        cache.put(signature, cache.getGeneration(), 0.97, 1_000);
+        assertTrue(Double.isNaN(cache.lookup(signature)));
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> cache(0));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateCache(0, 100, 60_000, 0.8));
+    }
+}
@@ -0,0 +1,169 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class ParallelSpamTrainerTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ParallelSpamTrainer trainer = new ParallelSpamTrainer(pool, Integer.MAX_VALUE);
+
+    static List<EmailMessage> messages(int count, String prefix) {
+        List<EmailMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean spam = i % 3 == 0;
+            messages.add(new EmailMessage(spam
+                ? "win a free prize now " + prefix + i
+                : "meeting notes for project " + prefix + (i % 7), spam ? EmailType.SPAM : EmailType.HAM));
+        }
+        return messages;
+    }
+
+    /**
+     * Hands out messages one by one, counting them, and records whether it was closed.
+     */
+    private static final class CountingCorpus implements Iterable<EmailMessage> {
+        private final List<EmailMessage> messages;
+        private final int[] pulled;
+        private final int failAt;
+        boolean closed;
+
+        CountingCorpus(List<EmailMessage> messages, int[] pulled, int failAt) {
+            this.messages = messages;
+            this.pulled = pulled;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public CloseableIterator<EmailMessage> iterator() {
+            Iterator<EmailMessage> delegate = messages.iterator();
+            return new CloseableIterator<>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public EmailMessage next() {
+                    if (index++ == failAt) {
+                        throw new IllegalStateException("corrupt message");
+                    }
+                    pulled[0]++;
+                    return delegate.next();
+                }
+
+                @Override
+                public void close() {
+                    closed = true;
+                }
+            };
+        }
+    }
+
+    @Test
+    void streamsOneBatchAtATimeAcrossCorpora() {
+        int[] pulled = new int[1];
+        CountingCorpus first = new CountingCorpus(messages(10, "a"), pulled, -1);
+        CountingCorpus second = new CountingCorpus(messages(10, "b"), pulled, -1);
+        List<Long> batches = new ArrayList<>();
+
+        SpamModel model = trainer.train(Arrays.asList(first, second), 3,
+            (messagesSoFar, vocabularySize) -> {
+                // Nothing is read ahead of the batch being trained
+                assertEquals(messagesSoFar, (long) pulled[0]);
+                batches.add(messagesSoFar);
+            });
+
+        assertEquals(Arrays.asList(3L, 6L, 9L, 12L, 15L, 18L, 20L), batches);
+        assertEquals(20, model.classCount(SpamModel.HAM) + model.classCount(SpamModel.SPAM), 0.0);
+        assertTrue(first.closed);
+        assertTrue(second.closed);
+    }
+
+    @Test
+    void streamedModelMatchesInMemoryModel() {
+        List<EmailMessage> a = messages(50, "a");
+        List<EmailMessage> b = messages(30, "b");
+        List<EmailMessage> all = new ArrayList<>(a);
+        all.addAll(b);
+
+        SpamModel inMemory = trainer.train(all);
+        SpamModel streamed = trainer.train(Arrays.asList(a, b), 7, (messagesSoFar, vocabularySize) -> { });
+
+        assertEquals(inMemory.vocabularySize(), streamed.vocabularySize());
+        for (EmailMessage message : all) {
+            assertEquals(inMemory.spamProbability(message.getContent()),
+                streamed.spamProbability(message.getContent()), 1e-12);
+        }
+    }
+
+    @Test
+    void closesTheIteratorWhenTrainingFails() {
+        CountingCorpus corpus = new CountingCorpus(messages(10, "a"), new int[1], 4);
+        assertThrows(IllegalStateException.class, () -> trainer
+            .train(Arrays.asList(corpus), 3, (messagesSoFar, vocabularySize) -> { }));
+        assertTrue(corpus.closed);
+    }
+
+    private static boolean hasWord(SpamModel model, String word) {
+        return model.dictionary().get(word.toCharArray(), word.length()) >= 0;
+    }
+
+    @Test
+    void keepsTheMostFrequentWordsPerClassWithTies() {
+        List<EmailMessage> messages = Arrays.asList(
+            new EmailMessage("cash cash cash", EmailType.SPAM),
+            new EmailMessage("win prize", EmailType.SPAM),
+            new EmailMessage("win", EmailType.SPAM),
+            new EmailMessage("meeting notes", EmailType.HAM),
+            new EmailMessage("meeting notes lunch", EmailType.HAM));
+
+        SpamModel model = new ParallelSpamTrainer(pool, 1).train(messages);
+
+        // Ranked by occurrences like the filter: "cash" beats "win" although fewer messages have it
+        assertTrue(hasWord(model, "cash"));
+        assertFalse(hasWord(model, "win"));
+        assertFalse(hasWord(model, "prize"));
+        // Ham ties at two occurrences, so both words are kept
+        assertTrue(hasWord(model, "meeting"));
+        assertTrue(hasWord(model, "notes"));
+        assertFalse(hasWord(model, "lunch"));
+        assertEquals(3, model.vocabularySize());
+
+        // Kept words still count messages, not occurrences
+        int cash = model.dictionary().get("cash".toCharArray(), 4);
+        assertEquals(1.0, model.wordCount(cash, SpamModel.SPAM), 0.0);
+        assertEquals(3.0, model.classCount(SpamModel.SPAM), 0.0);
+    }
+
+    @Test
+    void scoresLikeTheWekaFilterModel() throws Exception {
+        Random random = new Random(7);
+        List<EmailMessage> messages = SpamModelTest.trainingData(random, 500);
+
+        SpamModel weka = new SpamClassifier().buildModel(messages, 10);
+        SpamModel parallel = new ParallelSpamTrainer(pool, 10).train(messages);
+
+        assertEquals(weka.vocabularySize(), parallel.vocabularySize());
+        for (int i = 0; i < 100; i++) {
+            String message = SpamModelTest.message(random, random.nextBoolean());
+            assertEquals(weka.spamProbability(message), parallel.spamProbability(message), 1e-9);
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveWordsToKeep() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelSpamTrainer(pool, 0));
+    }
+}
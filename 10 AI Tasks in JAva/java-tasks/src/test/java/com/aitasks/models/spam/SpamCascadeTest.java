@@ -0,0 +1,89 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class SpamCascadeTest {
+
+    @Test
+    void keywordStageFindsOverlappingPatternsAnywhere() {
+        KeywordStage stage = new KeywordStage(Arrays.asList("bit.ly/", "free iphone"));
+
+        assertEquals(1.0, stage.evaluate("Claim your FREE iPhone today"));
+        assertEquals(1.0, stage.evaluate("see http://bit.ly/abc"));
+        // A false start ("he" then "h") falls back through the failure link instead of missing
+        assertEquals(1.0, new KeywordStage(Collections.singletonList("hers")).evaluate("hehers"));
+        assertTrue(Double.isNaN(new KeywordStage(Collections.singletonList("free iphone"))
+            .evaluate("a free phone, not an iphone")));
+    }
+
+    @Test
+    void keywordStageResetsOnNonAscii() {
+        KeywordStage stage = new KeywordStage(Collections.singletonList("free"));
+        assertTrue(Double.isNaN(stage.evaluate("frée")));
+        assertEquals(1.0, stage.evaluate("éfree"));
+    }
+
+    @Test
+    void keywordStageRejectsNonAsciiPatterns() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new KeywordStage(Collections.singletonList("grátis")));
+    }
+
+    @Test
+    void shoutingStageNeedsCapsAndExclamations() {
+        ShoutingStage stage = new ShoutingStage(0.6, 2);
+
+        assertEquals(1.0, stage.evaluate("CONGRATULATIONS! You've WON!!!"));
+        assertTrue(Double.isNaN(stage.evaluate("CONGRATULATIONS you have won")));
+        assertTrue(Double.isNaN(stage.evaluate("Congratulations, you have won!!!")));
+        // Too few letters to judge
+        assertTrue(Double.isNaN(stage.evaluate("WIN!!!")));
+    }
+
+    @Test
+    void fingerprintStageIgnoresCaseAndWhitespaceRuns() {
+        FingerprintStage stage = new FingerprintStage(1_000, 0.001);
+        stage.addKnownSpam("Buy cheap watches now");
+
+        assertEquals(1.0, stage.evaluate("  BUY   cheap\twatches\nnow "));
+        assertTrue(Double.isNaN(stage.evaluate("Buy cheap watches later")));
+    }
+
+    @Test
+    void fingerprintStageStaysNearItsFalsePositiveRate() {
+        FingerprintStage stage = new FingerprintStage(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            stage.addKnownSpam("known spam " + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(1.0, stage.evaluate("known spam " + (i % 1_000)));
+            if (!Double.isNaN(stage.evaluate("legitimate mail " + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void firstStageWithAnAnswerWinsAndIsCounted() {
+        SpamCascade cascade = new SpamCascade()
+            .addStage(new KeywordStage(Collections.singletonList("click here")))
+            .addStage(new ShoutingStage(0.6, 2));
+
+        assertEquals(1.0, cascade.evaluate("Click here to claim"));
+        assertEquals(1.0, cascade.evaluate("YOU ARE A WINNER TODAY!!"));
+        assertTrue(Double.isNaN(cascade.evaluate("Lunch at noon?")));
+        assertTrue(Double.isNaN(cascade.evaluate("Notes from the meeting")));
+
+        assertEquals(0.25, cascade.getHitRate(0), 1e-12);
+        assertEquals(1.0 / 3, cascade.getHitRate(1), 1e-12);
+        assertEquals(0.5, cascade.getSettledRate(), 1e-12);
+    }
+}
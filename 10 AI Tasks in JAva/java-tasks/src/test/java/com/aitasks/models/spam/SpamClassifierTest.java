@@ -0,0 +1,134 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Model files go to a temporary directory through system properties, which
+ * override application.properties.
+ */
+class SpamClassifierTest {
+    private static final List<String> PROPERTIES =
+        Arrays.asList("model.spam.snapshot", "spam.snapshot.save.on.start", "spam.update.max.delay.ms");
+
+    @TempDir
+    Path directory;
+
+    private Path snapshot;
+    private final List<EmailMessage> training =
+        SpamModelTest.trainingData(new Random(11), 300);
+
+    @BeforeEach
+    void pointModelFilesAtTheTempDirectory() {
+        snapshot = directory.resolve("spam-model.bin");
+        System.setProperty("model.spam.snapshot", snapshot.toString());
+    }
+
+    @AfterEach
+    void restoreConfiguration() {
+        PROPERTIES.forEach(System::clearProperty);
+    }
+
+    private void writeTrainedSnapshot() throws IOException {
+        SpamModelSnapshot.write(new ParallelSpamTrainer(new ForkJoinPool(2), 1_000).train(training), snapshot);
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void loadsTheConfiguredSnapshotWithoutWritingAnything() throws Exception {
+        writeTrainedSnapshot();
+        byte[] written = Files.readAllBytes(snapshot);
+
+        try (SpamClassifier classifier = new SpamClassifier()) {
+            classifier.initialize();
+            assertTrue(classifier.classify(SpamModelTest.message(new Random(1), true)).isSpam());
+        }
+
+        assertEquals(List.of("spam-model.bin"), files());
+        assertArrayEquals(written, Files.readAllBytes(snapshot));
+    }
+
+    @Test
+    void retrainsOverATruncatedSnapshot() throws Exception {
+        // Needs the Weka filter, which trains the built-in examples
+        writeTrainedSnapshot();
+        byte[] written = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(written, written.length / 2));
+
+        try (SpamClassifier classifier = new SpamClassifier()) {
+            classifier.initialize();
+            assertTrue(classifier.isInitialized());
+        }
+        // The retrained model replaced the damaged file
+        SpamModelSnapshot.read(snapshot);
+    }
+
+    @Test
+    void leavesTheSnapshotAloneWhenSavingOnStartIsOff() throws Exception {
+        // Needs the Weka filter, which trains the built-in examples
+        System.setProperty("spam.snapshot.save.on.start", "false");
+
+        try (SpamClassifier classifier = new SpamClassifier()) {
+            classifier.initialize();
+            assertTrue(classifier.isInitialized());
+        }
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void singleReportTakesEffectWithinTheMaximumDelay() throws Exception {
+        System.setProperty("spam.update.max.delay.ms", "50");
+        writeTrainedSnapshot();
+        String report = "zyxel quasar voucher";
+
+        try (SpamClassifier classifier = new SpamClassifier()) {
+            classifier.initialize();
+            double before = classifier.classify(report).getSpamProbability();
+            classifier.update(new EmailMessage(report, EmailType.SPAM));
+            assertEquals(1, classifier.getPendingUpdates());
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (classifier.getPendingUpdates() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, classifier.getPendingUpdates());
+            assertTrue(classifier.classify(report).getSpamProbability() > before);
+        }
+    }
+
+    @Test
+    void zeroDelayAppliesEachReportStraightAway() throws Exception {
+        System.setProperty("spam.update.max.delay.ms", "0");
+        writeTrainedSnapshot();
+        String report = "zyxel quasar voucher";
+
+        try (SpamClassifier classifier = new SpamClassifier()) {
+            classifier.initialize();
+            double before = classifier.classify(report).getSpamProbability();
+            classifier.update(new EmailMessage(report, EmailType.SPAM));
+            assertEquals(0, classifier.getPendingUpdates());
+            assertTrue(classifier.classify(report).getSpamProbability() > before);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.aitasks.models.spam;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Cross-validates the spam classifier on real mail with {@link SpamModelEvaluator}
+ * and prints one line of quality and cost per configuration.
+ * <p>
+ * Usage: {@code SpamEvaluationBenchmark <spam.mbox> <ham.mbox> [folds]}
+ */
+public class SpamEvaluationBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SpamEvaluationBenchmark <spam.mbox> <ham.mbox> [folds]");
+            return;
+        }
+        int folds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        List<EmailMessage> corpus = new ArrayList<>();
+        new MboxCorpus(Paths.get(args[0]), EmailType.SPAM).forEach(corpus::add);
+        new MboxCorpus(Paths.get(args[1]), EmailType.HAM).forEach(corpus::add);
+
+        try (SpamClassifier classifier = new SpamClassifier()) {
+            classifier.initialize();
+            ForkJoinPool pool = new ForkJoinPool(Math.min(folds, Runtime.getRuntime().availableProcessors()));
+            try {
+                SpamModelEvaluator evaluator = new SpamModelEvaluator(classifier, folds, pool, 42);
+                List<SpamModelEvaluator.Report> reports = evaluator.evaluate(corpus,
+                    new int[] {100, 1_000, 10_000},
+                    new double[] {0.3, 0.5, 0.7, 0.9});
+                System.out.printf("%d-fold cross-validation on %d messages%n", folds, corpus.size());
+                reports.forEach(System.out::println);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class SpamModelEvaluatorTest {
+    // Not a multiple of the fold count, so the folds differ in size
+    private final List<EmailMessage> corpus =
+        SpamModelTest.trainingData(new Random(5), 103);
+
+    @Test
+    void foldReportsAddUpToTheWholeCorpus() {
+        // Needs the Weka filter to build the fold models
+        long spam = corpus.stream().filter(message -> message.getType() == EmailType.SPAM).count();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            SpamModelEvaluator evaluator = new SpamModelEvaluator(new SpamClassifier(), 5, pool, 42);
+            List<SpamModelEvaluator.Report> reports =
+                evaluator.evaluate(corpus, new int[] {10, 100}, new double[] {0.3, 0.5, 0.9});
+
+            assertEquals(2 * 3, reports.size());
+            for (SpamModelEvaluator.Report report : reports) {
+                assertEquals(corpus.size(), report.getMessages());
+                assertEquals(spam, report.getTruePositives() + report.getFalseNegatives());
+                assertEquals(corpus.size() - spam, report.getFalsePositives() + report.getTrueNegatives());
+                assertEquals((double) (report.getTruePositives() + report.getTrueNegatives()) / corpus.size(),
+                    report.getAccuracy(), 1e-12);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void needsAtLeastTwoFolds() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            assertThrows(IllegalArgumentException.class,
+                () -> new SpamModelEvaluator(new SpamClassifier(), 1, pool, 42));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
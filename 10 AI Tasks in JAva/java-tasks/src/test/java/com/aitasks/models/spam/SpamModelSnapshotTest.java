@@ -0,0 +1,90 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpamModelSnapshotTest {
+    private final List<EmailMessage> training =
+        SpamModelTest.trainingData(new Random(7), 300);
+
+    @TempDir
+    Path directory;
+
+    private SpamModel train() {
+        return new ParallelSpamTrainer(new ForkJoinPool(2), 1_000).train(training);
+    }
+
+    @Test
+    void snapshotReadsBackTheSameModel() throws IOException {
+        SpamModel model = train();
+        // Non-ASCII tokens must survive the UTF-8 round trip
+        model.add("gratuit café crème", SpamModel.SPAM);
+        Path path = directory.resolve("models").resolve("spam.snapshot");
+
+        SpamModelSnapshot.write(model, path);
+        SpamModel read = SpamModelSnapshot.read(path);
+
+        assertEquals(model.vocabularySize(), read.vocabularySize());
+        for (int c = 0; c < SpamModel.NUM_CLASSES; c++) {
+            assertEquals(model.classCount(c), read.classCount(c), 0.0);
+        }
+        for (int f = 0; f < model.vocabularySize(); f++) {
+            assertEquals(model.dictionary().token(f), read.dictionary().token(f));
+            for (int c = 0; c < SpamModel.NUM_CLASSES; c++) {
+                assertEquals(model.wordCount(f, c), read.wordCount(f, c), 0.0);
+            }
+        }
+        for (EmailMessage message : training) {
+            assertEquals(model.spamProbability(message.getContent()),
+                read.spamProbability(message.getContent()), 0.0);
+        }
+        assertEquals(model.spamProbability("café crème"), read.spamProbability("café crème"), 0.0);
+    }
+
+    @Test
+    void rewritingReplacesTheSnapshotWithoutLeavingTempFiles() throws IOException {
+        Path path = directory.resolve("spam.snapshot");
+        SpamModelSnapshot.write(train(), path);
+        SpamModel larger = train().copy();
+        larger.add("entirely unseen tokens", SpamModel.HAM);
+
+        SpamModelSnapshot.write(larger, path);
+
+        assertEquals(larger.vocabularySize(), SpamModelSnapshot.read(path).vocabularySize());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertFalse(files.anyMatch(file -> file.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path path = directory.resolve("spam.snapshot");
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> SpamModelSnapshot.read(path));
+    }
+
+    @Test
+    void rejectsTruncatedSnapshots() throws IOException {
+        Path path = directory.resolve("spam.snapshot");
+        SpamModelSnapshot.write(train(), path);
+        byte[] written = Files.readAllBytes(path);
+
+        // Cut inside the header, the tokens and the counts, keeping the valid magic and version
+        for (int length : new int[] {10, 40, written.length / 2, written.length - 1}) {
+            Files.write(path, Arrays.copyOf(written, length));
+            assertThrows(IOException.class, () -> SpamModelSnapshot.read(path), "length " + length);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.aitasks.models.spam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringTokenizer;
+import org.junit.jupiter.api.Test;
+
+class SpamModelTest {
+    private static final String DELIMITERS = " \r\n\t.,;:'\"()?!";
+    private static final String[] HAM_WORDS = {
+        "meeting", "tomorrow", "review", "document", "quarterly", "report", "project",
+        "deadline", "agenda", "lunch", "schedule", "team", "update", "invoice", "notes"
+    };
+    private static final String[] SPAM_WORDS = {
+        "congratulations", "won", "free", "iphone", "buy", "now", "limited", "offer",
+        "winner", "prize", "click", "cash", "urgent", "selected", "discount"
+    };
+
+    private final List<EmailMessage> training = trainingData(new Random(1), 300);
+
+    /**
+     * Generated messages, each spam or ham at random, with a fifth of their words from the other class.
+     */
+    static List<EmailMessage> trainingData(Random random, int count) {
+        List<EmailMessage> data = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean spam = random.nextBoolean();
+            data.add(new EmailMessage(message(random, spam),
+                spam ? EmailType.SPAM : EmailType.HAM));
+        }
+        return data;
+    }
+
+    static String message(Random random, boolean spam) {
+        String[] primary = spam ? SPAM_WORDS : HAM_WORDS;
+        String[] secondary = spam ? HAM_WORDS : SPAM_WORDS;
+        int length = 8 + random.nextInt(24);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            String[] words = random.nextInt(5) == 0 ? secondary : primary;
+            String word = words[random.nextInt(words.length)];
+            message.append(spam && random.nextInt(4) == 0 ? word.toUpperCase() : word);
+            message.append(random.nextInt(8) == 0 ? "! " : " ");
+        }
+        return message.toString();
+    }
+
+    /**
+     * Distinct lower-cased tokens as Weka's WordTokenizer would produce them.
+     */
+    private static Set<String> tokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        StringTokenizer tokenizer = new StringTokenizer(text, DELIMITERS);
+        while (tokenizer.hasMoreTokens()) {
+            tokens.add(tokenizer.nextToken().toLowerCase());
+        }
+        return tokens;
+    }
+
+    /**
+     * Textbook multinomial Naive Bayes with Laplace smoothing over binary word counts.
+     */
+    private static double referenceSpamProbability(List<EmailMessage> training, String text) {
+        double[] classCounts = new double[2];
+        double[] totals = new double[2];
+        List<Map<String, Integer>> counts = List.of(new HashMap<>(), new HashMap<>());
+        Set<String> vocabulary = new LinkedHashSet<>();
+        for (EmailMessage message : training) {
+            int c = SpamModel.classIndexOf(message.getType());
+            classCounts[c]++;
+            for (String token : tokens(message.getContent())) {
+                counts.get(c).merge(token, 1, Integer::sum);
+                totals[c]++;
+                vocabulary.add(token);
+            }
+        }
+        double[] logScores = new double[2];
+        for (int c = 0; c < 2; c++) {
+            logScores[c] = Math.log((classCounts[c] + 1) / (classCounts[0] + classCounts[1] + 2));
+            for (String token : tokens(text)) {
+                if (vocabulary.contains(token)) {
+                    logScores[c] += Math.log((counts.get(c).getOrDefault(token, 0) + 1.0)
+                        / (totals[c] + vocabulary.size()));
+                }
+            }
+        }
+        return 1.0 / (1.0 + Math.exp(logScores[SpamModel.HAM] - logScores[SpamModel.SPAM]));
+    }
+
+    private static SpamModel train(List<EmailMessage> messages) {
+        TokenDictionary dictionary = new TokenDictionary(16);
+        HashedFeatureVectorizer vectorizer = new HashedFeatureVectorizer(dictionary);
+        int[] classCounts = new int[SpamModel.NUM_CLASSES];
+        List<int[]> features = new ArrayList<>();
+        for (EmailMessage message : messages) {
+            classCounts[SpamModel.classIndexOf(message.getType())]++;
+            HashedFeatureVectorizer.FeatureBuffer buffer = vectorizer.vectorizeAndGrow(message.getContent());
+            int[] ids = new int[buffer.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = buffer.feature(i);
+            }
+            features.add(ids);
+        }
+        int[] wordCounts = new int[dictionary.size() * SpamModel.NUM_CLASSES];
+        for (int m = 0; m < messages.size(); m++) {
+            for (int id : features.get(m)) {
+                wordCounts[id * SpamModel.NUM_CLASSES + SpamModel.classIndexOf(messages.get(m).getType())]++;
+            }
+        }
+        return SpamModel.fromCounts(dictionary, classCounts, wordCounts);
+    }
+
+    @Test
+    void vectorizesDistinctLowerCasedTokens() {
+        TokenDictionary dictionary = new TokenDictionary(16);
+        HashedFeatureVectorizer vectorizer = new HashedFeatureVectorizer(dictionary);
+
+        HashedFeatureVectorizer.FeatureBuffer features =
+            vectorizer.vectorizeAndGrow("Free FREE free! \"Cash\" (now)?\tcash");
+
+        assertEquals(3, features.size());
+        assertEquals("free", dictionary.token(features.feature(0)));
+        assertEquals(3, features.occurrences(0));
+        assertEquals("cash", dictionary.token(features.feature(1)));
+        assertEquals(2, features.occurrences(1));
+        assertEquals("now", dictionary.token(features.feature(2)));
+        assertEquals(1, features.occurrences(2));
+    }
+
+    @Test
+    void unknownTokensAreSkippedUnlessGrowing() {
+        TokenDictionary dictionary = new TokenDictionary(16);
+        HashedFeatureVectorizer vectorizer = new HashedFeatureVectorizer(dictionary);
+        vectorizer.vectorizeAndGrow("known words");
+
+        HashedFeatureVectorizer.FeatureBuffer features = vectorizer.vectorize("known unknown words");
+
+        assertEquals(2, features.size());
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void scoresLikeMultinomialNaiveBayes() {
+        SpamModel model = train(training);
+        Random random = new Random(2);
+        for (int i = 0; i < 100; i++) {
+            String message = message(random, random.nextBoolean()) + " never-seen";
+            assertEquals(referenceSpamProbability(training, message), model.spamProbability(message), 1e-9);
+        }
+    }
+
+    @Test
+    void addingMessagesMatchesTrainingOnThemFromScratch() {
+        List<EmailMessage> first = training.subList(0, 200);
+        List<EmailMessage> later = new ArrayList<>(training.subList(200, 300));
+        later.add(new EmailMessage("brand new vocabulary words", EmailType.SPAM));
+
+        SpamModel updated = train(first).copy();
+        for (EmailMessage message : later) {
+            updated.add(message.getContent(), SpamModel.classIndexOf(message.getType()));
+        }
+        List<EmailMessage> all = new ArrayList<>(first);
+        all.addAll(later);
+        SpamModel retrained = train(all);
+
+        assertEquals(retrained.vocabularySize(), updated.vocabularySize());
+        assertEquals(retrained.classCount(SpamModel.SPAM), updated.classCount(SpamModel.SPAM), 0.0);
+        for (EmailMessage message : all) {
+            assertEquals(retrained.spamProbability(message.getContent()),
+                updated.spamProbability(message.getContent()), 1e-12);
+        }
+    }
+
+    @Test
+    void updatingACopyLeavesTheOriginalUntouched() {
+        SpamModel original = train(training);
+        double before = original.spamProbability("brand new vocabulary");
+        int vocabulary = original.vocabularySize();
+
+        SpamModel copy = original.copy();
+        for (int i = 0; i < 50; i++) {
+            copy.add("brand new vocabulary", SpamModel.SPAM);
+        }
+
+        assertEquals(vocabulary, original.vocabularySize());
+        assertEquals(before, original.spamProbability("brand new vocabulary"), 0.0);
+        assertEquals(vocabulary + 3, copy.vocabularySize());
+    }
+
+    @Test
+    void batchScoresMatchSingleMessageScores() {
+        SpamModel model = train(training);
+        Random random = new Random(5);
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            messages.add(message(random, random.nextBoolean()));
+        }
+        messages.add("");
+        double[] probabilities = new double[messages.size()];
+        model.spamProbabilities(messages, probabilities);
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(model.spamProbability(messages.get(i)), probabilities[i], 1e-12);
+        }
+
+        // One message with more distinct words than the initial block holds, so it has to grow
+        StringBuilder longMessage = new StringBuilder();
+        for (EmailMessage message : training.subList(0, 50)) {
+            longMessage.append(message.getContent()).append(' ');
+        }
+        double[] single = new double[1];
+        model.spamProbabilities(Collections.singletonList(longMessage.toString()), single);
+        assertEquals(model.spamProbability(longMessage.toString()), single[0], 1e-12);
+    }
+}
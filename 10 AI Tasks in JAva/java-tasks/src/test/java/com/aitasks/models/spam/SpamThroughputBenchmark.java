@@ -0,0 +1,78 @@
+package com.aitasks.models.spam;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares single-message and batch classification throughput of
+ * {@link SpamClassifier} on a generated corpus.
+ * <p>
+ * Usage: {@code SpamThroughputBenchmark [messages] [batchSize]}
+ */
+public class SpamThroughputBenchmark {
+    private static volatile int sink;
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        Random random = new Random(42);
+
+        try (SpamClassifier classifier = new SpamClassifier()) {
+            classifier.initialize();
+            classifier.train(SpamModelTest.trainingData(random, 2_000));
+
+            List<String> corpus = new ArrayList<>(messages);
+            for (int i = 0; i < messages; i++) {
+                corpus.add(SpamModelTest.message(random, random.nextBoolean()));
+            }
+
+            // Warm up both paths before measuring
+            for (int round = 0; round < 3; round++) {
+                runSingle(classifier, corpus);
+                runBatch(classifier, corpus, batchSize);
+            }
+
+            long singleNanos = runSingle(classifier, corpus);
+            long batchNanos = runBatch(classifier, corpus, batchSize);
+
+            System.out.printf("Messages:          %d (batch size %d)%n", messages, batchSize);
+            System.out.printf("Single classify(): %,.0f msg/s%n", messages * 1e9 / singleNanos);
+            System.out.printf("classifyBatch():   %,.0f msg/s%n", messages * 1e9 / batchNanos);
+            System.out.printf("Speedup:           %.2fx%n", (double) singleNanos / batchNanos);
+        }
+    }
+
+    private static long runSingle(SpamClassifier classifier, List<String> corpus) {
+        long start = System.nanoTime();
+        int spam = 0;
+        for (String message : corpus) {
+            if (classifier.classify(message).isSpam()) {
+                spam++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(spam);
+        return elapsed;
+    }
+
+    private static long runBatch(SpamClassifier classifier, List<String> corpus, int batchSize) {
+        long start = System.nanoTime();
+        int spam = 0;
+        for (int from = 0; from < corpus.size(); from += batchSize) {
+            List<String> batch = corpus.subList(from, Math.min(corpus.size(), from + batchSize));
+            for (ClassificationResult result : classifier.classifyBatch(batch)) {
+                if (result.isSpam()) {
+                    spam++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(spam);
+        return elapsed;
+    }
+
+    private static void consume(int value) {
+        sink += value;
+    }
+}
@@ -0,0 +1,72 @@
+package com.aitasks.models.spam;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how {@link ParallelSpamTrainer} scales with the size of the training
+ * pool on a generated corpus, and compares the result with the sequential Weka
+ * filter path used by {@link SpamClassifier#train(List)}.
+ * <p>
+ * Usage: {@code SpamTrainingBenchmark [messages] [wordsToKeep]}
+ */
+public class SpamTrainingBenchmark {
+    // Rare tokens on top of the generator's words, so the vocabulary cut has work to do
+    private static final int RARE_WORDS = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int wordsToKeep = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        Random random = new Random(42);
+
+        List<EmailMessage> corpus = new ArrayList<>(messages);
+        for (EmailMessage message : SpamModelTest.trainingData(random, messages)) {
+            corpus.add(new EmailMessage(message.getContent() + " w" + random.nextInt(RARE_WORDS)
+                + " w" + random.nextInt(RARE_WORDS), message.getType()));
+        }
+
+        System.out.printf("Messages: %d, words to keep: %d%n", messages, wordsToKeep);
+        int processors = Runtime.getRuntime().availableProcessors();
+        SpamModel parallel = null;
+        long baselineNanos = 0;
+        for (int parallelism = 1; parallelism <= processors; parallelism <<= 1) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                ParallelSpamTrainer trainer = new ParallelSpamTrainer(pool, wordsToKeep);
+                // Warm up before measuring
+                for (int round = 0; round < 3; round++) {
+                    trainer.train(corpus);
+                }
+                long start = System.nanoTime();
+                parallel = trainer.train(corpus);
+                long elapsed = System.nanoTime() - start;
+                if (parallelism == 1) {
+                    baselineNanos = elapsed;
+                }
+                System.out.printf("Parallel, %2d threads: %,12.0f msg/s  speedup %.2fx  (%d features)%n",
+                    parallelism, messages * 1e9 / elapsed, (double) baselineNanos / elapsed,
+                    parallel.vocabularySize());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        try (SpamClassifier classifier = new SpamClassifier()) {
+            long start = System.nanoTime();
+            SpamModel weka = classifier.buildModel(corpus, wordsToKeep);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Weka filter:          %,12.0f msg/s  (%d features)%n",
+                messages * 1e9 / elapsed, weka.vocabularySize());
+
+            double maxDifference = 0;
+            for (int i = 0; i < 10_000; i++) {
+                String message = SpamModelTest.message(random, random.nextBoolean());
+                maxDifference = Math.max(maxDifference,
+                    Math.abs(weka.spamProbability(message) - parallel.spamProbability(message)));
+            }
+            System.out.printf("Max spam probability difference: %.3g%n", maxDifference);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.aitasks.models.stock;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.LSTM;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+class StockCheckpointsTest {
+    @TempDir
+    Path directory;
+
+    private final List<Path> skipped = new ArrayList<>();
+
+    private StockCheckpoints checkpoints(int keep) {
+        return new StockCheckpoints(directory, keep, (file, e) -> skipped.add(file));
+    }
+
+    private static MultiLayerNetwork network() {
+        MultiLayerNetwork network = new MultiLayerNetwork(new NeuralNetConfiguration.Builder()
+            .seed(7)
+            .list()
+            .layer(new LSTM.Builder().nIn(StockFeatures.COUNT).nOut(4).activation(Activation.TANH).build())
+            .layer(new RnnOutputLayer.Builder(LossFunctions.LossFunction.MSE)
+                .activation(Activation.IDENTITY).nIn(4).nOut(1).build())
+            .build());
+        network.init();
+        return network;
+    }
+
+    private static StockFeatures features() {
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        features.fit(StockFeaturesTest.bars(20, 100.0));
+        return features;
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void roundTripKeepsTheRanges() throws IOException {
+        StockCheckpoints checkpoints = checkpoints(3);
+        StockFeatures features = features();
+        assertEquals(1, checkpoints.save("AAPL", network(), features));
+
+        StockCheckpoints.Checkpoint loaded = checkpoints.load("AAPL");
+        assertNotNull(loaded);
+        assertNotNull(loaded.network);
+        assertEquals(1, loaded.version);
+        assertArrayEquals(features.getStats(), loaded.features.getStats());
+    }
+
+    @Test
+    void missingCheckpointIsNull() throws IOException {
+        assertNull(checkpoints(3).load("NONE"));
+    }
+
+    @Test
+    void prunesAllButTheNewestVersions() throws IOException {
+        StockCheckpoints checkpoints = checkpoints(2);
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, checkpoints.save("shared", network(), features()));
+        }
+        assertEquals(List.of("shared-v3.zip", "shared-v4.zip"), files());
+        assertEquals(4, checkpoints.load("shared").version);
+    }
+
+    @Test
+    void fallsBackPastAnUnreadableNewestVersion() throws IOException {
+        StockCheckpoints checkpoints = checkpoints(3);
+        checkpoints.save("shared", network(), features());
+        Path corrupt = directory.resolve("shared-v2.zip");
+        Files.write(corrupt, "not a zip".getBytes(StandardCharsets.US_ASCII));
+
+        StockCheckpoints.Checkpoint loaded = checkpoints.load("shared");
+        assertNotNull(loaded);
+        assertEquals(1, loaded.version);
+        assertEquals(List.of(corrupt), skipped);
+    }
+
+    @Test
+    void nothingReadableIsNull() throws IOException {
+        Files.write(directory.resolve("shared-v1.zip"), new byte[]{1, 2, 3});
+        assertNull(checkpoints(3).load("shared"));
+        assertEquals(1, skipped.size());
+    }
+
+    @Test
+    void rejectsNamesThatCouldEscapeTheDirectory() {
+        assertThrows(IllegalArgumentException.class, () -> checkpoints(3).load("../shared"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.aitasks.models.stock;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StockFeaturesTest {
+
+    static List<StockData> bars(int count, double start) {
+        List<StockData> bars = new ArrayList<>(count);
+        double close = start;
+        for (int i = 0; i < count; i++) {
+            double open = close;
+            close = open * (1 + 0.01 * Math.sin(i));
+            bars.add(new StockData("2024-01-" + (i + 1), open, Math.max(open, close) + 1,
+                Math.min(open, close) - 1, close, 1_000_000L + 1_000L * i));
+        }
+        return bars;
+    }
+
+    @Test
+    void firstSampleIsNotDegenerate() {
+        StockDataNormalizer normalizer = new StockDataNormalizer();
+        double normalized = normalizer.normalize(42.0);
+        assertEquals(0.0, normalized);
+        assertEquals(42.0, normalizer.denormalize(normalized), 1e-9);
+    }
+
+    @Test
+    void fittedWindowIsFiniteAndInRange() {
+        List<StockData> history = bars(30, 100.0);
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        features.fit(history);
+        double[] data = new double[StockFeatures.COUNT * history.size()];
+        features.write(history, data, 0, history.size());
+        for (double value : data) {
+            assertTrue(value >= 0.0 && value <= 1.0, "out of range: " + value);
+        }
+    }
+
+    @Test
+    void singleBarIsFinite() {
+        List<StockData> history = bars(1, 100.0);
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        features.fit(history);
+        double[] data = new double[StockFeatures.COUNT];
+        features.write(history, data, 0, 1);
+        for (double value : data) {
+            assertTrue(Double.isFinite(value), "not finite: " + value);
+        }
+    }
+
+    @Test
+    void flatSeriesIsFinite() {
+        List<StockData> history = Collections.nCopies(10, new StockData("2024-01-01", 5, 5, 5, 5, 0));
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        features.fit(history);
+        double[] data = new double[StockFeatures.COUNT * history.size()];
+        features.write(history, data, 0, history.size());
+        for (double value : data) {
+            assertEquals(0.0, value);
+        }
+        assertEquals(5.0, features.denormalizePrice(0.0), 1e-9);
+    }
+
+    @Test
+    void writingKeepsTheFittedRanges() {
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        features.fit(bars(30, 100.0));
+        double[] stats = features.getStats();
+        // Bars far outside the fitted range are scaled, not learned
+        List<StockData> outliers = bars(5, 10_000.0);
+        features.write(outliers, new double[StockFeatures.COUNT * 5], 0, 5);
+        assertArrayEquals(stats, features.getStats());
+    }
+
+    @Test
+    void copyHasTheSameRangesAndFitsIndependently() {
+        StockFeatures unfitted = new StockFeatures(new StockDataNormalizer());
+        assertFalse(unfitted.isFitted());
+        StockFeatures copy = unfitted.copy();
+        copy.fit(bars(3, 100.0));
+        assertTrue(copy.isFitted());
+        assertFalse(unfitted.isFitted());
+
+        StockFeatures restored = copy.copy();
+        assertArrayEquals(copy.getStats(), restored.getStats());
+        assertEquals(copy.denormalizePrice(0.5), restored.denormalizePrice(0.5));
+    }
+}
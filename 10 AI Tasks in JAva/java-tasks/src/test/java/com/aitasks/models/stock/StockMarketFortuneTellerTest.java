@@ -0,0 +1,63 @@
+package com.aitasks.models.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Smoke tests of the untrained network: predictions must come out finite
+ * whatever the history, even if they are not yet meaningful. Checkpoints are
+ * looked up in a temporary directory rather than under the working directory.
+ */
+class StockMarketFortuneTellerTest {
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void pointCheckpointsAtTheTempDirectory() {
+        System.setProperty("stock.checkpoint.dir", directory.toString());
+    }
+
+    @AfterEach
+    void restoreConfiguration() {
+        System.clearProperty("stock.checkpoint.dir");
+    }
+
+    private static void assertFinite(PredictionResult prediction) {
+        assertTrue(Double.isFinite(prediction.getPredictedPrice()),
+            "not finite: " + prediction.getPredictedPrice());
+        assertTrue(Double.isFinite(prediction.getChangePercent()),
+            "not finite: " + prediction.getChangePercent());
+    }
+
+    @Test
+    void batchPredictionsAreFinite() throws Exception {
+        try (StockMarketFortuneTeller teller = new StockMarketFortuneTeller()) {
+            teller.initialize();
+            Map<String, List<StockData>> histories = new LinkedHashMap<>();
+            histories.put("ONE", StockFeaturesTest.bars(1, 10.0));
+            histories.put("SHORT", StockFeaturesTest.bars(5, 50.0));
+            histories.put("LONG", StockFeaturesTest.bars(60, 3_000.0));
+
+            Map<String, PredictionResult> predictions = teller.predictBatch(histories);
+            assertEquals(histories.keySet(), predictions.keySet());
+            predictions.values().forEach(StockMarketFortuneTellerTest::assertFinite);
+        }
+    }
+
+    @Test
+    void singlePredictionIsFinite() throws Exception {
+        try (StockMarketFortuneTeller teller = new StockMarketFortuneTeller()) {
+            teller.initialize();
+            assertFinite(teller.predictNextDay(StockFeaturesTest.bars(20, 100.0)));
+        }
+    }
+}
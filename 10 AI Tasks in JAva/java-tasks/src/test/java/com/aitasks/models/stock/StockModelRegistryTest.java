@@ -0,0 +1,122 @@
+package com.aitasks.models.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.LSTM;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+class StockModelRegistryTest {
+    @TempDir
+    Path directory;
+
+    private StockCheckpoints checkpoints() {
+        return new StockCheckpoints(directory, 3, (file, e) -> { });
+    }
+
+    private static MultiLayerNetwork network() {
+        MultiLayerNetwork network = new MultiLayerNetwork(new NeuralNetConfiguration.Builder()
+            .seed(7)
+            .list()
+            .layer(new LSTM.Builder().nIn(StockFeatures.COUNT).nOut(4).activation(Activation.TANH).build())
+            .layer(new RnnOutputLayer.Builder(LossFunctions.LossFunction.MSE)
+                .activation(Activation.IDENTITY).nIn(4).nOut(1).build())
+            .build());
+        network.init();
+        return network;
+    }
+
+    private static StockFeatures features() {
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        features.fit(StockFeaturesTest.bars(20, 100.0));
+        return features;
+    }
+
+    private static long modelBytes() {
+        return new StockModelRegistry.TickerModel(network(), features(), 1).bytes;
+    }
+
+    @Test
+    void loadsOnceThenServesFromMemory() throws IOException {
+        checkpoints().save("ACME", network(), features());
+        StockModelRegistry registry = new StockModelRegistry(checkpoints(), 1L << 30, 60_000);
+
+        StockModelRegistry.TickerModel first = registry.get("ACME");
+        assertNotNull(first);
+        assertEquals(1, first.version);
+        assertSame(first, registry.get("ACME"));
+        assertEquals(1, registry.getLoads());
+        assertEquals(1, registry.getHits());
+        assertEquals(first.bytes, registry.getBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedModelsOverBudget() throws IOException {
+        long each = modelBytes();
+        StockModelRegistry registry = new StockModelRegistry(checkpoints(), 2 * each + each / 2, 60_000);
+
+        registry.put("A", network(), features());
+        registry.put("B", network(), features());
+        registry.get("A");
+        registry.put("C", network(), features());
+
+        // B was used least recently
+        assertEquals(2, registry.getLoadedModels());
+        assertEquals(1, registry.getEvictions());
+        assertEquals(2 * each, registry.getBytes());
+        assertEquals(1, registry.getHits());
+        // Evicted models come back from their checkpoint
+        assertEquals(1, registry.get("B").version);
+        assertEquals(1, registry.getLoads());
+        assertEquals(2, registry.getEvictions());
+        assertEquals(2 * each, registry.getBytes());
+    }
+
+    @Test
+    void newestModelStaysEvenIfItAloneExceedsTheBudget() throws IOException {
+        StockModelRegistry registry = new StockModelRegistry(checkpoints(), 1, 60_000);
+        registry.put("A", network(), features());
+        registry.put("B", network(), features());
+
+        assertEquals(1, registry.getLoadedModels());
+        assertEquals(modelBytes(), registry.getBytes());
+        assertEquals(1, registry.getEvictions());
+    }
+
+    @Test
+    void olderVersionNeverReplacesANewerOne() {
+        StockModelRegistry registry = new StockModelRegistry(checkpoints(), 1L << 30, 60_000);
+        StockModelRegistry.TickerModel newer = new StockModelRegistry.TickerModel(network(), features(), 2);
+        StockModelRegistry.TickerModel older = new StockModelRegistry.TickerModel(network(), features(), 1);
+
+        registry.cache("ACME", newer);
+        // As from a load that read version 1 before version 2 was put
+        assertSame(newer, registry.cache("ACME", older));
+        assertEquals(newer.bytes, registry.getBytes());
+        assertEquals(1, registry.getLoadedModels());
+    }
+
+    @Test
+    void missingTickersAreRememberedUntilTheRecheckInterval() throws IOException {
+        StockModelRegistry remembering = new StockModelRegistry(checkpoints(), 1L << 30, 60_000);
+        StockModelRegistry rechecking = new StockModelRegistry(checkpoints(), 1L << 30, 0);
+        assertNull(remembering.get("ACME"));
+        assertNull(rechecking.get("ACME"));
+
+        // Saved by another process
+        checkpoints().save("ACME", network(), features());
+
+        assertNull(remembering.get("ACME"));
+        assertNotNull(rechecking.get("ACME"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.aitasks.models.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.LSTM;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+/**
+ * Sessions are checked against whole-history predictions of the same shared
+ * model. That model is a small two-layer checkpoint with fitted ranges, so
+ * both paths scale bars alike.
+ */
+class StockPredictionSessionTest {
+    private static final double TOLERANCE = 1e-4;
+
+    @TempDir
+    Path directory;
+
+    private final List<StockData> history = StockFeaturesTest.bars(40, 100.0);
+
+    @BeforeEach
+    void saveASharedCheckpoint() throws IOException {
+        System.setProperty("stock.checkpoint.dir", directory.toString());
+        MultiLayerNetwork network = new MultiLayerNetwork(new NeuralNetConfiguration.Builder()
+            .seed(7)
+            .list()
+            .layer(new LSTM.Builder().nIn(StockFeatures.COUNT).nOut(8).activation(Activation.TANH).build())
+            .layer(new LSTM.Builder().nIn(8).nOut(4).activation(Activation.TANH).build())
+            .layer(new RnnOutputLayer.Builder(LossFunctions.LossFunction.MSE)
+                .activation(Activation.IDENTITY).nIn(4).nOut(1).build())
+            .build());
+        network.init();
+        StockFeatures features = new StockFeatures(new StockDataNormalizer());
+        features.fit(history);
+        new StockCheckpoints(directory, 3, (file, e) -> { }).save("shared", network, features);
+    }
+
+    @AfterEach
+    void restoreConfiguration() {
+        System.clearProperty("stock.checkpoint.dir");
+    }
+
+    private static void assertSamePrediction(PredictionResult expected, PredictionResult actual) {
+        assertEquals(expected.getPredictedPrice(), actual.getPredictedPrice(),
+            TOLERANCE * Math.abs(expected.getPredictedPrice()));
+        assertEquals(expected.isUptrend(), actual.isUptrend());
+    }
+
+    @Test
+    void barByBarMatchesPredictingFromTheWholeHistory() throws Exception {
+        try (StockMarketFortuneTeller teller = new StockMarketFortuneTeller()) {
+            teller.initialize();
+            StockPredictionSession session = teller.session("ACME");
+
+            for (int i = 0; i < history.size(); i++) {
+                PredictionResult streamed = session.update(history.get(i));
+                assertSamePrediction(teller.predictNextDay(history.subList(0, i + 1)), streamed);
+            }
+            assertEquals(history.size(), session.getBars());
+            assertEquals(history.get(history.size() - 1).getClose(), session.getLastClose(), 0.0);
+        }
+    }
+
+    @Test
+    void warmUpThenStepMatchesPredictingFromTheWholeHistory() throws Exception {
+        try (StockMarketFortuneTeller teller = new StockMarketFortuneTeller()) {
+            teller.initialize();
+            StockPredictionSession session = teller.session("ACME");
+            session.warmUp(history.subList(0, 30));
+
+            for (int i = 30; i < history.size(); i++) {
+                PredictionResult streamed = session.update(history.get(i));
+                assertSamePrediction(teller.predictNextDay(history.subList(0, i + 1)), streamed);
+            }
+
+            // Starting over forgets the old state
+            session.reset();
+            assertSamePrediction(teller.predictNextDay(history.subList(0, 1)), session.update(history.get(0)));
+        }
+    }
+}
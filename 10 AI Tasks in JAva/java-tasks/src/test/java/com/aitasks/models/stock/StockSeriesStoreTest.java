@@ -0,0 +1,139 @@
+package com.aitasks.models.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StockSeriesStoreTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Two tickers of different lengths, one with a non-ASCII name, on weekdays only.
+     */
+    private static StockSeriesStore.Builder builder() {
+        StockSeriesStore.Builder builder = new StockSeriesStore.Builder();
+        addBars(builder, "ACME", 300, 100.0);
+        addBars(builder, "ÜBER", 7, 20.0);
+        return builder;
+    }
+
+    private static void addBars(StockSeriesStore.Builder builder, String ticker, int count, double start) {
+        LocalDate date = START;
+        for (int i = 0; i < count; i++) {
+            double open = start + i;
+            builder.add(ticker, date, open, open + 2, open - 1, open + 0.5, 1_000L * i);
+            date = date.plusDays(date.getDayOfWeek().getValue() == 5 ? 3 : 1);
+        }
+    }
+
+    private static void assertSameBars(StockSeriesStore expected, StockSeriesStore actual) {
+        assertEquals(expected.tickers().toString(), actual.tickers().toString());
+        assertEquals(expected.getBarCount(), actual.getBarCount());
+        for (String ticker : expected.tickers()) {
+            StockSeries e = expected.get(ticker);
+            StockSeries a = actual.get(ticker);
+            assertEquals(ticker, a.getTicker());
+            assertEquals(e.size(), a.size());
+            for (int i = 0; i < e.size(); i++) {
+                assertEquals(e.epochDay(i), a.epochDay(i));
+                assertEquals(e.open(i), a.open(i), 0.0);
+                assertEquals(e.high(i), a.high(i), 0.0);
+                assertEquals(e.low(i), a.low(i), 0.0);
+                assertEquals(e.close(i), a.close(i), 0.0);
+                assertEquals(e.volume(i), a.volume(i));
+            }
+        }
+    }
+
+    @Test
+    void offHeapMatchesHeap() {
+        assertSameBars(builder().build(), builder().buildOffHeap());
+    }
+
+    @Test
+    void writtenStoreMapsBackUnchanged() throws IOException {
+        StockSeriesStore store = builder().build();
+        Path path = directory.resolve("bars.ohlc");
+        store.write(path);
+
+        assertSameBars(store, StockSeriesStore.map(path));
+    }
+
+    @Test
+    void writeReplacesAnExistingStore() throws IOException {
+        Path path = directory.resolve("bars.ohlc");
+        builder().build().write(path);
+        StockSeriesStore smaller = new StockSeriesStore.Builder()
+            .add("ACME", START, 1, 2, 0.5, 1.5, 10)
+            .build();
+        smaller.write(path);
+
+        StockSeriesStore mapped = StockSeriesStore.map(path);
+        assertSameBars(smaller, mapped);
+        assertNull(mapped.get("ÜBER"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void indexOfFindsTheFirstBarOnOrAfterADate() throws IOException {
+        Path path = directory.resolve("bars.ohlc");
+        builder().build().write(path);
+        StockSeries series = StockSeriesStore.map(path).get("ACME");
+
+        assertEquals(0, series.indexOf(START.minusDays(10)));
+        assertEquals(0, series.indexOf(START));
+        // 2024-01-06 is a Saturday, so the next bar is Monday the 8th
+        assertEquals(5, series.indexOf(LocalDate.of(2024, 1, 6)));
+        assertEquals(LocalDate.of(2024, 1, 8), series.date(5));
+        assertEquals(series.size(), series.indexOf(series.date(series.size() - 1).plusDays(1)));
+    }
+
+    @Test
+    void rejectsBarsOutOfDateOrder() {
+        StockSeriesStore.Builder builder = new StockSeriesStore.Builder()
+            .add("ACME", START.plusDays(1), 1, 2, 0.5, 1.5, 10);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> builder.add("ACME", START, 1, 2, 0.5, 1.5, 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> builder.add("ACME", START.plusDays(1), 1, 2, 0.5, 1.5, 10));
+        // Order is per ticker
+        builder.add("OTHER", START, 1, 2, 0.5, 1.5, 10);
+        assertEquals(1, builder.build().get("ACME").size());
+    }
+
+    @Test
+    void addsStockDataBars() {
+        List<StockData> bars = Arrays.asList(
+            new StockData("2024-01-02", 10, 11, 9, 10.5, 100),
+            new StockData("2024-01-03", 10.5, 12, 10, 11.5, 200));
+        StockSeries series = new StockSeriesStore.Builder().addAll("ACME", bars).build().get("ACME");
+
+        assertEquals(2, series.size());
+        assertEquals(LocalDate.of(2024, 1, 3), series.date(1));
+        assertEquals(11.5, series.lastClose(), 0.0);
+        assertEquals(200, series.volume(1));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotStores() throws IOException {
+        Path path = directory.resolve("bars.ohlc");
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> StockSeriesStore.map(path));
+    }
+}
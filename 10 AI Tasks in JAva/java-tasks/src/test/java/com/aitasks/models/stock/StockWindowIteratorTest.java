@@ -0,0 +1,94 @@
+package com.aitasks.models.stock;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import org.nd4j.linalg.dataset.DataSet;
+
+class StockWindowIteratorTest {
+    private static final int WINDOW = 5;
+
+    // 20 bars give windows starting at 0, 2, ..., 14 and 12 bars at 0, 2, 4, 6
+    private final List<StockSeries> series = Arrays.asList(
+        series("AAA", 20, 100.0),
+        series("BBB", 12, 50.0),
+        series("CCC", WINDOW, 10.0));
+
+    private static StockSeries series(String ticker, int count, double start) {
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        List<StockData> bars = new ArrayList<>(count);
+        for (StockData bar : StockFeaturesTest.bars(count, start)) {
+            bars.add(new StockData(date.toString(), bar.getOpen(), bar.getHigh(), bar.getLow(),
+                bar.getClose(), bar.getVolume()));
+            date = date.plusDays(1);
+        }
+        return StockSeries.of(ticker, bars);
+    }
+
+    private StockWindowIterator iterator() {
+        return new StockWindowIterator(series, WINDOW, 2, 5, 42L);
+    }
+
+    @Test
+    void countsWindowsThatHaveANextBarToPredict() {
+        assertEquals(8 + 4, iterator().getWindowCount());
+    }
+
+    @Test
+    void batchesAreExamplesByFeaturesByTimesteps() {
+        StockWindowIterator iterator = iterator();
+        int[] batchSizes = new int[3];
+        int batches = 0;
+        while (iterator.hasNext()) {
+            DataSet batch = iterator.next();
+            int n = (int) batch.getFeatures().shape()[0];
+            assertArrayEquals(new long[]{n, StockFeatures.COUNT, WINDOW}, batch.getFeatures().shape());
+            assertArrayEquals(new long[]{n, 1, WINDOW}, batch.getLabels().shape());
+            batchSizes[batches++] = n;
+        }
+        // The last batch holds what is left over
+        assertArrayEquals(new int[]{5, 5, 2}, batchSizes);
+        assertEquals(12, iterator.getExamplesServed());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void valuesAreScaledWithTheFittedRanges() {
+        StockWindowIterator iterator = iterator();
+        DataSet batch = iterator.next();
+        for (int row = 0; row < 5; row++) {
+            for (int t = 0; t < WINDOW; t++) {
+                for (int f = 0; f < StockFeatures.COUNT; f++) {
+                    double value = batch.getFeatures().getDouble(row, f, t);
+                    assertTrue(value >= 0.0 && value <= 1.0, "out of range: " + value);
+                }
+                double label = batch.getLabels().getDouble(row, 0, t);
+                assertTrue(label >= 0.0 && label <= 1.0, "out of range: " + label);
+            }
+        }
+    }
+
+    @Test
+    void resetStartsANewEpoch() {
+        StockWindowIterator iterator = iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        assertFalse(iterator.hasNext());
+
+        iterator.reset();
+
+        assertTrue(iterator.hasNext());
+        assertEquals(3, iterator.next(3).getFeatures().shape()[0]);
+        assertEquals(12 + 3, iterator.getExamplesServed());
+    }
+}
@@ -0,0 +1,123 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DocumentFrequencyIndexTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @TempDir
+    Path directory;
+
+    private static final List<String> CORPUS = Arrays.asList(
+        "Rivers carry water. Rivers flood.",
+        "Forests need water.",
+        "The mountains are tall.",
+        "");
+
+    @Test
+    void countsEachWordOncePerDocument() {
+        DocumentFrequencyIndex index = DocumentFrequencyIndex.build(CORPUS, pool);
+
+        assertEquals(4, index.getDocumentCount());
+        assertEquals(1, index.documentFrequency("rivers"));
+        assertEquals(2, index.documentFrequency("water"));
+        assertEquals(1, index.documentFrequency("are"));
+        // Stop words are not counted, like in sentence scoring
+        assertEquals(0, index.documentFrequency("the"));
+        assertEquals(0, index.documentFrequency("unknown"));
+    }
+
+    @Test
+    void rareWordsWeighMore() {
+        DocumentFrequencyIndex index = DocumentFrequencyIndex.build(CORPUS, pool);
+        char[] water = "water".toCharArray();
+        char[] rivers = "rivers".toCharArray();
+        char[] unseen = "glaciers".toCharArray();
+
+        double common = index.idf(water, 0, water.length);
+        double rare = index.idf(rivers, 0, rivers.length);
+        assertTrue(rare > common);
+        assertEquals(Math.log(5.0 / 3.0) + 1.0, common, 1e-12);
+        assertEquals(Math.log(5.0) + 1.0, index.idf(unseen, 0, unseen.length), 1e-12);
+    }
+
+    @Test
+    void largeCorpusMatchesAFullCount() {
+        List<String> corpus = new ArrayList<>();
+        for (int d = 0; d < 1_000; d++) {
+            corpus.add("common words everywhere word" + (d % 10) + " unique" + d);
+        }
+        DocumentFrequencyIndex index = DocumentFrequencyIndex.build(corpus, pool);
+
+        assertEquals(1_000, index.documentFrequency("common"));
+        assertEquals(100, index.documentFrequency("word7"));
+        assertEquals(1, index.documentFrequency("unique999"));
+        assertEquals(3 + 10 + 1_000, index.getWordCount());
+    }
+
+    @Test
+    void writtenIndexMapsBackUnchanged() throws IOException {
+        DocumentFrequencyIndex index = DocumentFrequencyIndex.build(CORPUS, pool);
+        Path path = directory.resolve("idf.bin");
+        index.write(path);
+
+        DocumentFrequencyIndex mapped = DocumentFrequencyIndex.read(path);
+        assertEquals(index.getDocumentCount(), mapped.getDocumentCount());
+        assertEquals(index.getWordCount(), mapped.getWordCount());
+        for (String word : new String[] {"rivers", "water", "forests", "mountains", "tall", "missing"}) {
+            assertEquals(index.documentFrequency(word), mapped.documentFrequency(word), word);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotIndexes() throws IOException {
+        Path path = directory.resolve("idf.bin");
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> DocumentFrequencyIndex.read(path));
+    }
+
+    @Test
+    void rejectsTruncatedIndexes() throws IOException {
+        Path path = directory.resolve("idf.bin");
+        DocumentFrequencyIndex.build(CORPUS, pool).write(path);
+        byte[] written = Files.readAllBytes(path);
+
+        // Cut inside the slots and inside the last entry, keeping the valid header
+        for (int length : new int[] {40, written.length - 1}) {
+            Files.write(path, Arrays.copyOf(written, length));
+            assertThrows(IOException.class, () -> DocumentFrequencyIndex.read(path), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsInconsistentTables() throws IOException {
+        Path path = directory.resolve("idf.bin");
+        DocumentFrequencyIndex.build(CORPUS, pool).write(path);
+        byte[] written = Files.readAllBytes(path);
+
+        // A slot count that is not a power of two
+        byte[] slots = written.clone();
+        ByteBuffer.wrap(slots).putInt(20, 24);
+        Files.write(path, slots);
+        assertThrows(IOException.class, () -> DocumentFrequencyIndex.read(path));
+
+        // A word count that does not match the used slots
+        byte[] words = written.clone();
+        ByteBuffer.wrap(words).putInt(16, 1);
+        Files.write(path, words);
+        assertThrows(IOException.class, () -> DocumentFrequencyIndex.read(path));
+    }
+}
@@ -0,0 +1,35 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class ParallelSentenceScorerTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @Test
+    void scoresExactlyLikeTheSequentialScorer() {
+        // Several segments, the last one partial
+        String[] sentences = SentenceScorerTest.randomSentences(new Random(9), 10_000);
+
+        double[] sequential = new SentenceScorer().score(sentences);
+        double[] parallel = new ParallelSentenceScorer(pool).score(sentences);
+
+        assertArrayEquals(sequential, parallel, 0.0);
+    }
+
+    @Test
+    void scoresASingleShortSegment() {
+        String[] sentences = {"Cats purr.", "Dogs bark at cats.", "Birds sing."};
+        assertArrayEquals(new SentenceScorer().score(sentences),
+            new ParallelSentenceScorer(pool).score(sentences), 0.0);
+    }
+
+    @Test
+    void scoresAnEmptyDocument() {
+        assertEquals(0, new ParallelSentenceScorer(pool).score(new String[0]).length);
+    }
+}
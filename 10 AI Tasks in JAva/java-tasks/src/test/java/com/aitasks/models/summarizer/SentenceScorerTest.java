@@ -0,0 +1,98 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class SentenceScorerTest {
+    private static final Set<String> STOP_WORDS =
+        Set.of("the", "a", "an", "and", "or", "but", "in", "on", "at", "to");
+    private static final String[] PIECES = {
+        "the", "a", "to", "and", "cat", "sat", "mat", "Dog", "RUNS", "x1", "foo_bar", "42",
+        " ", " ", " ", ", ", ". ", "!", "--", "é", "K", "ok"
+    };
+
+    /**
+     * The original String-based heuristic: frequencies of significant words over the
+     * document, summed per sentence and divided by the sentence's split length.
+     */
+    private static double[] referenceScores(String[] sentences) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String sentence : sentences) {
+            for (String word : sentence.toLowerCase().split("\\W+")) {
+                if (isSignificant(word)) {
+                    frequencies.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+        double[] scores = new double[sentences.length];
+        for (int s = 0; s < sentences.length; s++) {
+            String[] words = sentences[s].toLowerCase().split("\\W+");
+            double sum = 0;
+            for (String word : words) {
+                if (isSignificant(word)) {
+                    sum += frequencies.get(word);
+                }
+            }
+            scores[s] = words.length == 0 ? 0.0 : sum / words.length;
+        }
+        return scores;
+    }
+
+    private static boolean isSignificant(String word) {
+        return word.length() > 2 && !STOP_WORDS.contains(word);
+    }
+
+    static String[] randomSentences(Random random, int count) {
+        String[] sentences = new String[count];
+        for (int s = 0; s < count; s++) {
+            StringBuilder sentence = new StringBuilder();
+            int pieces = random.nextInt(12);
+            for (int p = 0; p < pieces; p++) {
+                sentence.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            sentences[s] = sentence.toString();
+        }
+        return sentences;
+    }
+
+    @Test
+    void matchesTheOriginalHeuristic() {
+        Random random = new Random(5);
+        SentenceScorer scorer = new SentenceScorer();
+        for (int round = 0; round < 100; round++) {
+            String[] sentences = randomSentences(random, 1 + random.nextInt(30));
+            // The scorer is reused across documents, as each thread's scorer is
+            assertArrayEquals(referenceScores(sentences), scorer.score(sentences), 1e-12);
+        }
+    }
+
+    @Test
+    void countsSplitPiecesLikeStringSplit() {
+        SentenceTokenizer tokenizer = new SentenceTokenizer();
+        List<String> words = new ArrayList<>();
+        SentenceTokenizer.WordSink sink = (buffer, length) -> words.add(new String(buffer, 0, length));
+        for (String text : new String[] {"", "...", " leading space", "trailing space ", "a--b", "Cat sat."}) {
+            int pieces = tokenizer.tokenize(text, 0, text.length(), sink);
+            assertEquals(text.toLowerCase().split("\\W+").length, pieces, text);
+        }
+        words.clear();
+        tokenizer.tokenize("The CAT and the big_dog ran to 42 mats", 0, 38, sink);
+        assertEquals(List.of("cat", "big_dog", "ran", "mats"), words);
+    }
+
+    @Test
+    void sentencesWithoutWordsScoreZero() {
+        double[] scores = new SentenceScorer().score(new String[] {"Cats purr.", "...", "Cats nap."});
+        assertEquals(0.0, scores[1], 0.0);
+        // "cats" twice in the document plus "purr" once, over two words
+        assertEquals(1.5, scores[0], 0.0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StreamingSentenceSelectorTest {
+    // Small enough that the test files span many chunks
+    private static final int CHUNK_BYTES = 256;
+    private static final int SKETCH_WIDTH = 1 << 16;
+
+    @TempDir
+    Path directory;
+
+    private Path write(String text) throws IOException {
+        Path path = directory.resolve("document.txt");
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private static StreamingSentenceSelector.Selection select(TextSummarizer summarizer, Path path, double ratio)
+            throws Exception {
+        SentenceDetectorPool pool = summarizer.getDetectorPool();
+        SentenceDetectorME detector = pool.acquire();
+        try {
+            return new StreamingSentenceSelector(detector, CHUNK_BYTES, SKETCH_WIDTH).select(path, ratio);
+        } finally {
+            pool.release(detector);
+        }
+    }
+
+    @Test
+    void selectsLikeSummarizingTheWholeText() throws Exception {
+        try (TextSummarizer summarizer = SummarizerSessionTest.summarizer()) {
+            String text = SummarizerSessionTest.document(new Random(8), 200);
+            Path path = write(text);
+            assertTrue(text.length() > 20 * CHUNK_BYTES);
+
+            for (double ratio : new double[] {0.1, 0.3, 0.5}) {
+                StreamingSentenceSelector.Selection selection = select(summarizer, path, ratio);
+                assertEquals(200, selection.sentences());
+                assertEquals(text.length(), selection.chars());
+                assertEquals(summarizer.summarize(text, ratio).getSummary(),
+                    String.join(" ", selection.topSentences()));
+            }
+        }
+    }
+
+    @Test
+    void multiByteCharactersSurviveChunkBoundaries() throws Exception {
+        try (TextSummarizer summarizer = SummarizerSessionTest.summarizer()) {
+            StringBuilder text = new StringBuilder();
+            Random random = new Random(9);
+            for (int s = 0; s < 60; s++) {
+                text.append(s % 3 == 0 ? "Café crème près du château. " : "")
+                    .append(SummarizerSessionTest.document(random, 1)).append(' ');
+            }
+            String document = text.toString().trim();
+            Path path = write(document);
+
+            StreamingSentenceSelector.Selection selection = select(summarizer, path, 1.0);
+            assertEquals(document.length(), selection.chars());
+            assertEquals(document, String.join(" ", selection.topSentences()));
+        }
+    }
+
+    @Test
+    void summarizesFilesThroughTheSummarizer() throws Exception {
+        try (TextSummarizer summarizer = SummarizerSessionTest.summarizer()) {
+            String text = SummarizerSessionTest.document(new Random(10), 50);
+            SummaryResult streamed = summarizer.summarize(write(text), 0.3);
+            SummaryResult whole = summarizer.summarize(text, 0.3);
+
+            assertEquals(whole.getSummary(), streamed.getSummary());
+            assertEquals(text.length(), streamed.getOriginalLength());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.aitasks.models.summarizer;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the original regex/HashMap sentence scoring with {@link SentenceScorer}
+ * and {@link ParallelSentenceScorer} on a generated document, reporting latency
+ * and bytes allocated per run (the allocation figure is the calling thread's
+ * only, so it undercounts the parallel scorer). Sentence detection is the same
+ * for all of them and is left out of the measurement.
+ * <p>
+ * Usage: {@code SummarizerBenchmark [documentKb] [rounds] [parallelism]}
+ */
+public class SummarizerBenchmark {
+    private static final String[] VOCABULARY = {
+        "the", "a", "and", "to", "in", "of", "is", "it", "model", "network", "training",
+        "data", "summary", "sentence", "document", "coffee", "break", "language", "text",
+        "processing", "result", "quality", "memory", "latency", "throughput", "benchmark",
+        "system", "request", "response", "cache", "Transformer", "Attention", "GPU", "2024"
+    };
+
+    private static final Set<String> STOP_WORDS =
+        Set.of("the", "a", "an", "and", "or", "but", "in", "on", "at", "to");
+
+    private static volatile double sink;
+
+    public static void main(String[] args) {
+        int documentKb = args.length > 0 ? Integer.parseInt(args[0]) : 1_024;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2])
+            : Runtime.getRuntime().availableProcessors();
+        String[] sentences = generateSentences(new Random(42), documentKb * 1024);
+
+        SentenceScorer scorer = new SentenceScorer();
+        if (!Arrays.equals(legacyScores(sentences), scorer.score(sentences))) {
+            throw new IllegalStateException("Scorer output differs from the original heuristic");
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ParallelSentenceScorer parallelScorer = new ParallelSentenceScorer(pool);
+        if (!Arrays.equals(scorer.score(sentences), parallelScorer.score(sentences))) {
+            throw new IllegalStateException("Parallel scorer output differs from the sequential one");
+        }
+
+        // Warm up all paths before measuring
+        for (int round = 0; round < 3; round++) {
+            consume(legacyScores(sentences));
+            consume(scorer.score(sentences));
+            consume(parallelScorer.score(sentences));
+        }
+
+        long legacyNanos = 0;
+        long legacyBytes = 0;
+        long scorerNanos = 0;
+        long scorerBytes = 0;
+        long parallelNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            consume(legacyScores(sentences));
+            legacyNanos += System.nanoTime() - start;
+            legacyBytes += allocatedBytes() - bytes;
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            consume(scorer.score(sentences));
+            scorerNanos += System.nanoTime() - start;
+            scorerBytes += allocatedBytes() - bytes;
+
+            start = System.nanoTime();
+            consume(parallelScorer.score(sentences));
+            parallelNanos += System.nanoTime() - start;
+        }
+
+        // TextRank is far more expensive, so it gets a single timed run
+        TextRankScorer textRank = new TextRankScorer(pool, 0.85, 0.05, 100, 1e-6);
+        consume(textRank.score(sentences));
+        long start = System.nanoTime();
+        consume(textRank.score(sentences));
+        long textRankNanos = System.nanoTime() - start;
+        pool.shutdown();
+
+        System.out.printf("Document:        %d KB, %d sentences%n", documentKb, sentences.length);
+        System.out.printf("Regex/HashMap:   %.1f ms, %,d KB allocated%n",
+            legacyNanos / 1e6 / rounds, legacyBytes / 1024 / rounds);
+        System.out.printf("SentenceScorer:  %.1f ms, %,d KB allocated%n",
+            scorerNanos / 1e6 / rounds, scorerBytes / 1024 / rounds);
+        System.out.printf("Parallel (%2d):   %.1f ms%n", parallelism, parallelNanos / 1e6 / rounds);
+        System.out.printf("TextRank (%2d):   %.1f ms%n", parallelism, textRankNanos / 1e6);
+        System.out.printf("Speedup:         %.1fx, allocations %.1fx lower%n",
+            (double) legacyNanos / scorerNanos, (double) legacyBytes / Math.max(1, scorerBytes));
+        System.out.printf("Parallel speedup over SentenceScorer: %.2fx%n",
+            (double) scorerNanos / parallelNanos);
+    }
+
+    /**
+     * The scoring heuristic as TextSummarizer originally implemented it.
+     */
+    private static double[] legacyScores(String[] sentences) {
+        Map<String, Integer> wordFreq = new HashMap<>();
+        for (String sentence : sentences) {
+            for (String word : sentence.toLowerCase().split("\\W+")) {
+                if (word.length() > 2 && !STOP_WORDS.contains(word)) {
+                    wordFreq.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+        double[] scores = new double[sentences.length];
+        for (int i = 0; i < sentences.length; i++) {
+            String[] words = sentences[i].toLowerCase().split("\\W+");
+            scores[i] = Arrays.stream(words)
+                .filter(word -> word.length() > 2 && !STOP_WORDS.contains(word))
+                .mapToDouble(word -> wordFreq.getOrDefault(word, 0))
+                .sum() / words.length;
+        }
+        return scores;
+    }
+
+    static String[] generateSentences(Random random, int totalChars) {
+        List<String> sentences = new ArrayList<>();
+        int chars = 0;
+        while (chars < totalChars) {
+            String sentence = generateSentence(random);
+            sentences.add(sentence);
+            chars += sentence.length() + 1;
+        }
+        return sentences.toArray(new String[0]);
+    }
+
+    static String generateSentence(Random random) {
+        int length = 6 + random.nextInt(20);
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sentence.append(random.nextInt(10) == 0 ? ", " : " ");
+            }
+            // A long tail of rare words keeps the vocabulary realistic
+            if (random.nextInt(4) == 0) {
+                sentence.append("term").append(random.nextInt(50_000));
+            } else {
+                sentence.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            }
+        }
+        return sentence.append(random.nextInt(8) == 0 ? "!" : ".").toString();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getCurrentThreadAllocatedBytes();
+    }
+
+    private static void consume(double[] scores) {
+        sink += scores[scores.length - 1];
+    }
+}
@@ -0,0 +1,120 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SummarizerSessionTest {
+    private static final String[] WORDS = {
+        "river", "forest", "mountain", "water", "flood", "valley", "stone", "bridge",
+        "rain", "cloud", "village", "harvest", "winter", "summer", "market", "road"
+    };
+
+    /**
+     * An initialized summarizer; skips the test when the OpenNLP sentence model is not on the classpath.
+     */
+    static TextSummarizer summarizer() throws Exception {
+        assumeTrue(TextSummarizer.class.getResource("/models/en-sent.bin") != null,
+            "needs the OpenNLP sentence model /models/en-sent.bin");
+        TextSummarizer summarizer = new TextSummarizer();
+        summarizer.initialize();
+        return summarizer;
+    }
+
+    /**
+     * Plain sentences of 4 to 12 words from a small vocabulary, so they share words.
+     */
+    static String document(Random random, int sentences) {
+        StringBuilder text = new StringBuilder();
+        for (int s = 0; s < sentences; s++) {
+            int words = 4 + random.nextInt(9);
+            for (int w = 0; w < words; w++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                text.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word)
+                    .append(w == words - 1 ? ". " : " ");
+            }
+        }
+        return text.toString().trim();
+    }
+
+    @Test
+    void chunkedAppendsSelectLikeOneCall() throws Exception {
+        try (TextSummarizer summarizer = summarizer()) {
+            Random random = new Random(3);
+            String text = document(random, 40);
+
+            SummarizerSession session = summarizer.openSession();
+            // Chunks end mid-word, mid-sentence and right after a full stop
+            int position = 0;
+            while (position < text.length()) {
+                int end = Math.min(text.length(), position + 1 + random.nextInt(80));
+                session.append(text.substring(position, end));
+                position = end;
+            }
+            session.flush();
+
+            SummaryResult whole = summarizer.summarize(text, 0.3);
+            assertEquals(40, session.getSentenceCount());
+            assertEquals(text.length(), session.getLength());
+            assertEquals(whole.getSummary(), session.summary(0.3).getSummary());
+            assertEquals(whole.getCompressionRatio(), session.summary(0.3).getCompressionRatio(), 0.0);
+        }
+    }
+
+    @Test
+    void unfinishedLastSentenceIsHeldBack() throws Exception {
+        try (TextSummarizer summarizer = summarizer()) {
+            SummarizerSession session = summarizer.openSession();
+            session.append("Rivers carry water. Forests need ");
+            assertEquals(1, session.getSentenceCount());
+
+            session.append("rain. Mountains are ");
+            assertEquals(2, session.getSentenceCount());
+
+            session.append("tall.");
+            // The last sentence could still go on
+            assertEquals(2, session.getSentenceCount());
+            session.flush();
+            assertEquals(3, session.getSentenceCount());
+            assertEquals("Rivers carry water. Forests need rain. Mountains are tall.",
+                summarizer.summarize("Rivers carry water. Forests need rain. Mountains are tall.", 1.0).getSummary());
+            assertEquals("Rivers carry water. Forests need rain. Mountains are tall.",
+                session.summary(1.0).getSummary());
+        }
+    }
+
+    @Test
+    void runOnTailIsCutAtTheCap() throws Exception {
+        try (TextSummarizer summarizer = summarizer()) {
+            SummarizerSession session = new SummarizerSession(summarizer, 64);
+            session.append("First sentence here. ");
+            StringBuilder runOn = new StringBuilder();
+            while (runOn.length() < 63) {
+                runOn.append("and more ");
+            }
+            session.append(runOn.toString());
+            assertEquals(1, session.getSentenceCount());
+
+            // Crossing the cap commits the run-on text as a sentence of its own
+            session.append("words without end ");
+            assertEquals(2, session.getSentenceCount());
+
+            session.append("Then a proper sentence. And another one.");
+            session.flush();
+            assertEquals(4, session.getSentenceCount());
+        }
+    }
+
+    @Test
+    void shortSessionsComeBackWhole() throws Exception {
+        try (TextSummarizer summarizer = summarizer()) {
+            SummarizerSession session = summarizer.openSession();
+            session.append("Only one sentence. And half of");
+            SummaryResult summary = session.summary(0.3);
+            assertEquals("Only one sentence. And half of", summary.getSummary());
+            assertEquals(1.0, summary.getCompressionRatio(), 0.0);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SummaryCacheTest {
+
+    private static String text(int length, char first) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) (first + i % 26));
+        }
+        return text.toString();
+    }
+
+    private static void put(SummaryCache cache, String text, String summary) {
+        cache.put(SummaryCache.key(text, 0.3), new SummaryResult(text, summary, 0.5, "cached message"), 12);
+    }
+
+    private static SummaryResult get(SummaryCache cache, String text) {
+        return cache.get(SummaryCache.key(text, 0.3), text, sentences -> "fresh " + sentences);
+    }
+
+    private static void roundTrips(boolean offHeap) {
+        SummaryCache cache = new SummaryCache(1 << 20, offHeap);
+        String text = "Original document text.";
+        String summary = text(1_000, 'a') + " é ☕ 𝄞";
+
+        assertNull(get(cache, text));
+        put(cache, text, summary);
+        SummaryResult hit = get(cache, text);
+
+        assertNotNull(hit);
+        assertEquals(summary, hit.getSummary());
+        assertEquals(text, hit.getOriginalText());
+        assertEquals(0.5, hit.getCompressionRatio(), 0.0);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void roundTripsOnHeap() {
+        roundTrips(false);
+    }
+
+    @Test
+    void roundTripsOffHeapAcrossBlocks() {
+        roundTrips(true);
+    }
+
+    @Test
+    void missesOnADifferentRatio() {
+        SummaryCache cache = new SummaryCache(1 << 20, false);
+        put(cache, "text", "summary");
+        assertNull(cache.get(SummaryCache.key("text", 0.5), "text", sentences -> ""));
+    }
+
+    @Test
+    void asksForAFreshMessageOnEveryHit() {
+        SummaryCache cache = new SummaryCache(1 << 20, false);
+        AtomicInteger calls = new AtomicInteger();
+        put(cache, "text", "summary");
+
+        for (int i = 1; i <= 3; i++) {
+            SummaryResult hit = cache.get(SummaryCache.key("text", 0.3), "text",
+                sentences -> "message " + calls.incrementAndGet() + " for " + sentences);
+            assertEquals("message " + i + " for 12", hit.getMessage());
+        }
+    }
+
+    @Test
+    void weighsTwoBytesPerCharOnHeap() {
+        SummaryCache cache = new SummaryCache(1 << 20, false);
+        put(cache, "text", text(100, 'a'));
+        assertEquals(200, cache.getWeight());
+        assertEquals(0, cache.getOffHeapBytes());
+    }
+
+    @Test
+    void weighsWholeBlocksOffHeap() {
+        SummaryCache cache = new SummaryCache(1 << 20, true);
+        int charsPerBlock = SummaryCache.BLOCK_BYTES / 2;
+        put(cache, "one", text(1, 'a'));
+        put(cache, "two", text(charsPerBlock + 1, 'a'));
+        assertEquals(3L * SummaryCache.BLOCK_BYTES, cache.getWeight());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryByBytes() {
+        SummaryCache cache = new SummaryCache(600, false);
+        put(cache, "first", text(100, 'a'));
+        put(cache, "second", text(100, 'b'));
+        put(cache, "third", text(100, 'c'));
+        assertNotNull(get(cache, "first"));
+
+        put(cache, "fourth", text(100, 'd'));
+
+        assertNull(get(cache, "second"));
+        assertNotNull(get(cache, "first"));
+        assertNotNull(get(cache, "third"));
+        assertNotNull(get(cache, "fourth"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(600, cache.getWeight());
+    }
+
+    @Test
+    void reusesFreedBlocksInsteadOfAllocatingMore() {
+        long maxWeight = 8L * SummaryCache.BLOCK_BYTES;
+        SummaryCache cache = new SummaryCache(maxWeight, true);
+        for (int i = 0; i < 1_000; i++) {
+            String summary = text(1 + i % 300, (char) ('a' + i % 3));
+            put(cache, "text " + i, summary);
+            assertEquals(summary, get(cache, "text " + i).getSummary());
+            assertTrue(cache.getWeight() <= maxWeight);
+        }
+        assertEquals(maxWeight, cache.getOffHeapBytes());
+    }
+
+    @Test
+    void replacingAnEntryReleasesItsWeight() {
+        SummaryCache cache = new SummaryCache(1 << 20, true);
+        put(cache, "text", text(500, 'a'));
+        put(cache, "text", text(10, 'b'));
+        assertEquals(SummaryCache.BLOCK_BYTES, cache.getWeight());
+        assertEquals(text(10, 'b'), get(cache, "text").getSummary());
+    }
+
+    @Test
+    void skipsEntriesHeavierThanTheWholeCache() {
+        SummaryCache cache = new SummaryCache(100, false);
+        put(cache, "text", text(51, 'a'));
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void clearReleasesEverything() {
+        SummaryCache cache = new SummaryCache(1 << 20, true);
+        put(cache, "first", text(300, 'a'));
+        put(cache, "second", text(300, 'b'));
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getWeight());
+        assertNull(get(cache, "first"));
+    }
+
+    @Test
+    void rejectsNonPositiveWeight() {
+        assertThrows(IllegalArgumentException.class, () -> new SummaryCache(0, false));
+    }
+
+    @Test
+    void keysTellApartTextsOfTheSameLength() {
+        assertEquals(SummaryCache.key("Same text.", 0.3), SummaryCache.key(new String("Same text."), 0.3));
+        assertNotEquals(SummaryCache.key("Same text.", 0.3), SummaryCache.key("Same text!", 0.3));
+        assertNotEquals(SummaryCache.key("Same text.", 0.3), SummaryCache.key("Same text.", 0.5));
+        // Differences in the unrolled part and in the tail both reach the key
+        assertNotEquals(SummaryCache.key("abcdefgh", 0.3), SummaryCache.key("abcdefgi", 0.3));
+        assertNotEquals(SummaryCache.key("abcdefghi", 0.3), SummaryCache.key("abcdefghj", 0.3));
+    }
+}
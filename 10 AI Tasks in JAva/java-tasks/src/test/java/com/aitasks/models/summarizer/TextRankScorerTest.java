@@ -0,0 +1,72 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class TextRankScorerTest {
+
+    private static TextRankScorer scorer(ForkJoinPool pool) {
+        return new TextRankScorer(pool, 0.85, 0.05, 100, 1e-9);
+    }
+
+    @Test
+    void ranksSumToOne() {
+        String[] sentences = SentenceScorerTest.randomSentences(new Random(3), 500);
+        double[] ranks = scorer(new ForkJoinPool(2)).score(sentences);
+        assertEquals(1.0, Arrays.stream(ranks).sum(), 1e-9);
+        assertTrue(Arrays.stream(ranks).allMatch(rank -> rank > 0));
+    }
+
+    @Test
+    void sentenceSharingWordsWithAllOthersRanksFirst() {
+        String[] sentences = {
+            "Rivers carry water.",
+            "Forests shelter wildlife.",
+            "Rivers, forests and mountains shape the land.",
+            "Mountains block clouds.",
+            "Unrelated trivia here."
+        };
+        double[] ranks = scorer(new ForkJoinPool(2)).score(sentences);
+        assertArrayEquals(new int[] {2}, TopSentences.select(ranks, 1));
+    }
+
+    @Test
+    void isolatedSentencesShareRankEvenly() {
+        String[] sentences = {"Alpha beta.", "Gamma delta.", "Epsilon zeta."};
+        double[] ranks = scorer(new ForkJoinPool(1)).score(sentences);
+        for (double rank : ranks) {
+            assertEquals(1.0 / 3, rank, 1e-12);
+        }
+    }
+
+    @Test
+    void resultsDoNotDependOnParallelism() {
+        String[] sentences = SentenceScorerTest.randomSentences(new Random(4), 3_000);
+        assertArrayEquals(scorer(new ForkJoinPool(1)).score(sentences),
+            scorer(new ForkJoinPool(4)).score(sentences), 0.0);
+    }
+
+    @Test
+    void emptyDocumentHasNoScores() {
+        assertEquals(0, scorer(new ForkJoinPool(1)).score(new String[0]).length);
+    }
+
+    @Test
+    void documentsScoredOnTheSameThreadsDoNotAffectEachOther() {
+        String[] large = SentenceScorerTest.randomSentences(new Random(5), 2_000);
+        String[] small = SentenceScorerTest.randomSentences(new Random(6), 300);
+        double[] fresh = scorer(new ForkJoinPool(1)).score(small);
+
+        // Per-thread buffers sized by the large document are reused for the small one
+        TextRankScorer reused = scorer(new ForkJoinPool(1));
+        reused.score(large);
+        assertArrayEquals(fresh, reused.score(small), 0.0);
+        assertArrayEquals(scorer(new ForkJoinPool(1)).score(large), reused.score(large), 0.0);
+    }
+}
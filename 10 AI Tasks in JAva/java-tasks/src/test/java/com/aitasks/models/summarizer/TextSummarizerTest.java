@@ -0,0 +1,61 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * More request threads than detectors and no summary cache, so every request
+ * borrows a detector and some of them have to wait for one.
+ */
+class TextSummarizerTest {
+    private static final List<String> PROPERTIES =
+        Arrays.asList("summarizer.detector.pool.size", "summarizer.async.threads", "summarizer.cache.max.mb");
+
+    @BeforeEach
+    void shareFewDetectorsBetweenManyThreads() {
+        System.setProperty("summarizer.detector.pool.size", "2");
+        System.setProperty("summarizer.async.threads", "8");
+        System.setProperty("summarizer.cache.max.mb", "0");
+    }
+
+    @AfterEach
+    void restoreConfiguration() {
+        PROPERTIES.forEach(System::clearProperty);
+    }
+
+    @Test
+    void concurrentAsyncSummariesMatchSequentialOnes() throws Exception {
+        try (TextSummarizer summarizer = SummarizerSessionTest.summarizer()) {
+            Random random = new Random(12);
+            List<String> documents = new ArrayList<>();
+            for (int d = 0; d < 64; d++) {
+                documents.add(SummarizerSessionTest.document(random, 5 + random.nextInt(30)));
+            }
+
+            List<CompletableFuture<SummaryResult>> futures = new ArrayList<>();
+            for (String document : documents) {
+                futures.add(summarizer.summarizeAsync(document, 0.3));
+            }
+            for (int d = 0; d < documents.size(); d++) {
+                SummaryResult async = futures.get(d).get();
+                SummaryResult sequential = summarizer.summarize(documents.get(d), 0.3);
+                assertEquals(sequential.getSummary(), async.getSummary());
+                assertEquals(sequential.getCompressionRatio(), async.getCompressionRatio(), 0.0);
+            }
+
+            SentenceDetectorPool pool = summarizer.getDetectorPool();
+            assertEquals(2, pool.getSize());
+            assertEquals(2 * documents.size(), pool.getAcquisitions());
+            // Every borrowed detector went back
+            assertEquals(2, pool.getAvailable());
+        }
+    }
+}
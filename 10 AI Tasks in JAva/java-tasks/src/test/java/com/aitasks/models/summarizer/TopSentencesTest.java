@@ -0,0 +1,83 @@
+package com.aitasks.models.summarizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class TopSentencesTest {
+
+    /**
+     * Reference ranking by full sort: higher score first, then earlier sentence.
+     */
+    private static int[] sortedRanking(double[] scores, int k) {
+        return IntStream.range(0, scores.length).boxed()
+            .sorted(Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingInt(i -> i))
+            .limit(k)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    @Test
+    void selectsTheBestSentencesInDocumentOrder() {
+        double[] scores = {0.1, 0.9, 0.3, 0.8, 0.2};
+        assertArrayEquals(new int[] {1, 3}, TopSentences.select(scores, 2));
+        assertArrayEquals(new int[] {1, 2, 3}, TopSentences.select(scores, 3));
+    }
+
+    @Test
+    void tiesGoToTheEarlierSentence() {
+        // Duplicate sentences score the same; each is still its own index
+        double[] scores = {0.5, 0.7, 0.5, 0.7, 0.5};
+        assertArrayEquals(new int[] {1}, TopSentences.select(scores, 1));
+        assertArrayEquals(new int[] {0, 1, 3}, TopSentences.select(scores, 3));
+        assertArrayEquals(new int[] {1, 3, 0, 2}, TopSentences.rank(scores, 4));
+    }
+
+    @Test
+    void handlesKOutsideTheSentenceCount() {
+        double[] scores = {0.3, 0.1, 0.2};
+        assertArrayEquals(new int[0], TopSentences.select(scores, 0));
+        assertArrayEquals(new int[] {0, 1, 2}, TopSentences.select(scores, 10));
+        assertArrayEquals(new int[] {0, 2, 1}, TopSentences.rank(scores, 10));
+        assertArrayEquals(new int[0], TopSentences.select(new double[0], 3));
+    }
+
+    @Test
+    void onlyConsidersTheFirstCountScores() {
+        double[] scores = {0.1, 0.2, 0.3, 0.9, 0.9};
+        assertArrayEquals(new int[] {1, 2}, TopSentences.select(scores, 3, 2));
+    }
+
+    @Test
+    void rankingMatchesAFullSort() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            double[] scores = new double[1 + random.nextInt(200)];
+            for (int i = 0; i < scores.length; i++) {
+                // Few distinct values, so ties are common
+                scores[i] = random.nextInt(10) / 10.0;
+            }
+            int k = 1 + random.nextInt(scores.length);
+            assertArrayEquals(sortedRanking(scores, k), TopSentences.rank(scores, k));
+        }
+    }
+
+    @Test
+    void everyRankingPrefixIsTheSelection() {
+        Random random = new Random(12);
+        double[] scores = new double[100];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextInt(20);
+        }
+        int[] ranking = TopSentences.rank(scores, 60);
+        for (int j = 1; j <= ranking.length; j++) {
+            int[] prefix = Arrays.copyOf(ranking, j);
+            Arrays.sort(prefix);
+            assertArrayEquals(TopSentences.select(scores, j), prefix);
+        }
+    }
+}